@@ -0,0 +1,61 @@
+#!/usr/bin/env bash
+# Время от запуска JVM до первого успешного HTTP-ответа для разных конфигураций старта.
+# Перед запуском: mvn -Pfast-startup package (тонкий jar, target/fast-startup/lib и архив CDS).
+# Использование: scripts/startup-benchmark.sh [URL] [повторов]
+#   URL по умолчанию http://localhost:8080/actuator/health (нужна запущенная база данных).
+#   EXTRA_ARGS - дополнительные аргументы приложения для всех конфигураций.
+set -euo pipefail
+
+URL="${1:-http://localhost:8080/actuator/health}"
+RUNS="${2:-5}"
+TARGET="$(cd "$(dirname "$0")/.." && pwd)/target"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+CP="$TARGET/SpringFrameTest2-1.0-SNAPSHOT.jar:$TARGET/fast-startup/lib/*"
+MAIN=org.example.frameworks.SpringExampleApplication
+FAST=--spring.profiles.active=fast-startup
+
+# Имя конфигурации и аргументы JVM/приложения
+CONFIGS=(
+  "baseline|-Dspring.aot.enabled=false"
+  "lazy+skip-liquibase|-Dspring.aot.enabled=false $FAST"
+  "aot|-Dspring.aot.enabled=true $FAST"
+  "aot+cds|-Dspring.aot.enabled=true -XX:SharedArchiveFile=$TARGET/fast-startup/app.jsa $FAST"
+)
+
+now_ms() {
+  date +%s%3N
+}
+
+measure() {
+  local args="$1 ${EXTRA_ARGS:-}"
+  local jvm_args=() app_args=()
+  for arg in $args; do
+    if [[ "$arg" == --* ]]; then app_args+=("$arg"); else jvm_args+=("$arg"); fi
+  done
+  local started
+  started=$(now_ms)
+  "$JAVA" "${jvm_args[@]}" -cp "$CP" "$MAIN" "${app_args[@]}" > /dev/null 2>&1 &
+  local pid=$!
+  until curl -sf -o /dev/null "$URL"; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "failed" >&2
+      return 1
+    fi
+    sleep 0.05
+  done
+  echo $(( $(now_ms) - started ))
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+}
+
+printf "%-22s %s\n" "configuration" "time to first successful request, ms"
+for config in "${CONFIGS[@]}"; do
+  name="${config%%|*}"
+  args="${config#*|}"
+  times=()
+  for ((i = 0; i < RUNS; i++)); do
+    times+=("$(measure "$args")")
+  done
+  sorted=($(printf "%s\n" "${times[@]}" | sort -n))
+  printf "%-22s median %s (runs: %s)\n" "$name" "${sorted[$((RUNS / 2))]}" "${times[*]}"
+done
@@ -0,0 +1,132 @@
+package org.example.frameworks.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import org.example.frameworks.SpringExampleApplication;
+import org.example.frameworks.dto.CommentDto;
+import org.example.frameworks.entity.Author;
+import org.example.frameworks.entity.Comment;
+import org.example.frameworks.repository.AuthorRepository;
+import org.example.frameworks.services.AuthorCRUDService;
+import org.example.frameworks.services.CommentCRUDService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Удаление авторов с комментариями на встроенной H2:
+ * прежний путь (загрузка автора и каскадное удаление каждого комментария Hibernate)
+ * против одного DELETE ... WHERE id IN (...) с каскадом по внешнему ключу.
+ * Каждый вызов удаляет AUTHORS свежесозданных авторов по comments комментариев.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class BulkDeleteBenchmark {
+
+    private static final int AUTHORS = 10;
+
+    @Param({"10", "1000"})
+    public int comments;
+
+    private ConfigurableApplicationContext context;
+
+    private EntityManager entityManager;
+
+    private TransactionTemplate transaction;
+
+    private AuthorRepository authorRepository;
+
+    private AuthorCRUDService authorService;
+
+    private CommentCRUDService commentService;
+
+    private List<Integer> authorIds;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(SpringExampleApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bulkdelete;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.liquibase.enabled=false",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        entityManager = context.getBean(EntityManager.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        authorRepository = context.getBean(AuthorRepository.class);
+        authorService = context.getBean(AuthorCRUDService.class);
+        commentService = context.getBean(CommentCRUDService.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void createAuthors() {
+        List<Author> authors = new ArrayList<>();
+        for (int i = 0; i < AUTHORS; i++) {
+            Author author = new Author();
+            author.setFirstName("First" + i);
+            author.setLastName("Last" + i);
+            author.setRating((long) i);
+            authors.add(author);
+        }
+        authorIds = authorRepository.saveAll(authors).stream().map(Author::getId).toList();
+        List<CommentDto> batch = new ArrayList<>();
+        for (Integer authorId : authorIds) {
+            for (int j = 0; j < comments; j++) {
+                CommentDto comment = new CommentDto();
+                comment.setText("Comment " + j);
+                comment.setAuthorId(authorId);
+                batch.add(comment);
+            }
+        }
+        commentService.createAll(batch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Прежний путь: автор загружается, его комментарии загружаются и удаляются по одному.
+     */
+    @Benchmark
+    public void entityCascadeDelete() {
+        transaction.executeWithoutResult(status -> authorIds.forEach(id -> {
+            Author author = entityManager.find(Author.class, id);
+            for (Comment comment : author.getComments()) {
+                entityManager.remove(comment);
+            }
+            entityManager.remove(author);
+        }));
+    }
+
+    @Benchmark
+    public int bulkDelete() {
+        return authorService.deleteAll(authorIds);
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.frameworks.benchmarks;
+
+import org.example.frameworks.SpringExampleApplication;
+import org.example.frameworks.dto.CommentDto;
+import org.example.frameworks.entity.Author;
+import org.example.frameworks.repository.AuthorRepository;
+import org.example.frameworks.services.CommentCRUDService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Создание ROWS комментариев на встроенной H2: по одному (отдельная транзакция и INSERT
+ * на каждый комментарий, как при POST /comment на каждый) против одного POST /comment/batch
+ * (пакеты JDBC по 500 строк, идентификаторы блоками последовательности).
+ * Результат в операциях в секунду - это строки в секунду.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OperationsPerInvocation(CommentBatchInsertBenchmark.ROWS)
+@Fork(1)
+public class CommentBatchInsertBenchmark {
+
+    static final int ROWS = 1000;
+
+    private static final int AUTHORS = 10;
+
+    private ConfigurableApplicationContext context;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private CommentCRUDService commentService;
+
+    private List<CommentDto> comments;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(SpringExampleApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:batchinsert;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.liquibase.enabled=false",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        commentService = context.getBean(CommentCRUDService.class);
+        List<Author> authors = new ArrayList<>();
+        for (int i = 0; i < AUTHORS; i++) {
+            Author author = new Author();
+            author.setFirstName("First" + i);
+            author.setLastName("Last" + i);
+            author.setRating(0L);
+            authors.add(author);
+        }
+        List<Integer> authorIds = context.getBean(AuthorRepository.class).saveAll(authors).stream()
+                .map(Author::getId).toList();
+        comments = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            CommentDto comment = new CommentDto();
+            comment.setText("Comment " + i);
+            comment.setAuthorId(authorIds.get(i % AUTHORS));
+            comments.add(comment);
+        }
+    }
+
+    /**
+     * Таблица не растёт от итерации к итерации.
+     */
+    @TearDown(Level.Iteration)
+    public void deleteComments() {
+        jdbcTemplate.update("delete from comment");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void perRowCreate() {
+        comments.forEach(commentService::create);
+    }
+
+    @Benchmark
+    public int batchCreate() {
+        return commentService.createAll(comments).getCreatedIds().size();
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.frameworks.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.example.frameworks.dto.AuthorDto;
+import org.example.frameworks.entity.Author;
+import org.example.frameworks.entity.Comment;
+import org.example.frameworks.services.AuthorCRUDService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути каждого запроса: преобразование Author/AuthorDto
+ * (AuthorCRUDService.mapToDto/mapToEntity) и сериализация AuthorDto
+ * со вложенным списком комментариев в JSON.
+ * Запуск: mvn -Pjmh test-compile exec:exec (результат в target/jmh-result.json).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    @Param({"0", "10", "1000", "100000"})
+    private int comments;
+
+    private Author author;
+
+    private AuthorDto authorDto;
+
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        author = new Author();
+        author.setId(1);
+        author.setFirstName("Ivan");
+        author.setLastName("Petrov");
+        author.setRating(42L);
+        author.setVersion(0L);
+        List<Comment> authorComments = new ArrayList<>(comments);
+        for (int i = 0; i < comments; i++) {
+            Comment comment = new Comment();
+            comment.setId(i + 1);
+            comment.setText("Comment number " + i + " with some ordinary length text");
+            comment.setAuthor(author);
+            comment.setTime(LocalDateTime.now());
+            comment.setVersion(0L);
+            authorComments.add(comment);
+        }
+        author.setComments(authorComments);
+        authorDto = AuthorCRUDService.mapToDto(author);
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+    }
+
+    @Benchmark
+    public AuthorDto mapToDto() {
+        return AuthorCRUDService.mapToDto(author);
+    }
+
+    @Benchmark
+    public Author mapToEntity() {
+        return AuthorCRUDService.mapToEntity(authorDto);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(authorDto);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws Exception {
+        return objectMapper.writeValueAsBytes(AuthorCRUDService.mapToDto(author));
+    }
+}
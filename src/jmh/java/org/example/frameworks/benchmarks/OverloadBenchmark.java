@@ -0,0 +1,112 @@
+package org.example.frameworks.benchmarks;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.frameworks.limits.AdaptiveLimiter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Перегрузка записи: 200 клиентов на пул из 10 соединений, запрос держит соединение 5 мс.
+ * Без ограничителя запросы стоят в очереди за соединением и p99 растёт вместе с числом клиентов,
+ * с ограничителем лишние запросы сразу получают отказ, а p99 принятых остаётся около порога задержки.
+ * Перцентили задержки принятых запросов печатаются после каждой итерации (в SampleTime
+ * отказы тоже попадают в выборку), число принятых и отказанных - счётчики accepted и rejected.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(200)
+@Fork(1)
+public class OverloadBenchmark {
+
+    private static final int POOL_SIZE = 10;
+
+    private static final long SERVICE_TIME_MILLIS = 5;
+
+    private Semaphore connections;
+
+    private AdaptiveLimiter limiter;
+
+    private Timer acceptedLatency;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcome {
+
+        public long accepted;
+
+        public long rejected;
+    }
+
+    @Setup
+    public void setUp() {
+        connections = new Semaphore(POOL_SIZE, true);
+        limiter = new AdaptiveLimiter("writes", 20, 1, 200, Duration.ofMillis(20), 0.9);
+        acceptedLatency = Timer.builder("accepted")
+                .publishPercentiles(0.5, 0.99)
+                .distributionStatisticExpiry(Duration.ofSeconds(2))
+                .register(new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void printPercentiles() {
+        StringBuilder line = new StringBuilder("accepted latency:");
+        for (ValueAtPercentile value : acceptedLatency.takeSnapshot().percentileValues()) {
+            line.append(String.format(" p%.0f=%.1f ms", value.percentile() * 100, value.value(TimeUnit.MILLISECONDS)));
+        }
+        System.out.println(line.append(", limit=").append(limiter.getLimit()));
+    }
+
+    @Benchmark
+    public void unlimited(Outcome outcome) throws InterruptedException {
+        execute();
+        outcome.accepted++;
+    }
+
+    @Benchmark
+    public void limited(Outcome outcome) throws InterruptedException {
+        if (!limiter.tryAcquire()) {
+            outcome.rejected++;
+            // Клиент получил 503 и повторит после Retry-After
+            Thread.sleep(SERVICE_TIME_MILLIS);
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            execute();
+            outcome.accepted++;
+        } finally {
+            limiter.release(System.nanoTime() - started, false);
+        }
+    }
+
+    private void execute() throws InterruptedException {
+        long started = System.nanoTime();
+        connections.acquire();
+        try {
+            Thread.sleep(SERVICE_TIME_MILLIS);
+        } finally {
+            connections.release();
+        }
+        acceptedLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+}
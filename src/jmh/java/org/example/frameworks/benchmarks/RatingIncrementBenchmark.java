@@ -0,0 +1,104 @@
+package org.example.frameworks.benchmarks;
+
+import org.example.frameworks.SpringExampleApplication;
+import org.example.frameworks.entity.Author;
+import org.example.frameworks.repository.AuthorRepository;
+import org.example.frameworks.services.RatingAccumulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Голосование за AUTHORS "горячих" авторов из 32 потоков на встроенной H2:
+ * UPDATE author SET rating = rating + 1 в отдельной транзакции на каждый голос
+ * (блокировка строки) против накопления в RatingAccumulator с записью пакетом раз в 100 мс.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class RatingIncrementBenchmark {
+
+    private static final int AUTHORS = 10;
+
+    private ConfigurableApplicationContext context;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transaction;
+
+    private RatingAccumulator ratingAccumulator;
+
+    private Integer[] authorIds;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(SpringExampleApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:rating;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.hikari.maximum-pool-size=32",
+                        "--spring.liquibase.enabled=false",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--app.rating.flush-interval=100ms",
+                        "--logging.level.root=WARN");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        ratingAccumulator = context.getBean(RatingAccumulator.class);
+        List<Author> authors = new ArrayList<>();
+        for (int i = 0; i < AUTHORS; i++) {
+            Author author = new Author();
+            author.setFirstName("First" + i);
+            author.setLastName("Last" + i);
+            author.setRating(0L);
+            authors.add(author);
+        }
+        authorIds = context.getBean(AuthorRepository.class).saveAll(authors).stream()
+                .map(Author::getId)
+                .toArray(Integer[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void rowLockUpdate() {
+        Integer id = authorIds[ThreadLocalRandom.current().nextInt(AUTHORS)];
+        transaction.executeWithoutResult(status ->
+                jdbcTemplate.update("update author set rating = rating + 1 where id = ?", id));
+    }
+
+    @Benchmark
+    public void accumulated() {
+        ratingAccumulator.increment(authorIds[ThreadLocalRandom.current().nextInt(AUTHORS)], 1);
+    }
+}
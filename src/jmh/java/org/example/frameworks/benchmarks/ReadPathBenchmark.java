@@ -0,0 +1,137 @@
+package org.example.frameworks.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import org.example.frameworks.SpringExampleApplication;
+import org.example.frameworks.dto.AuthorDto;
+import org.example.frameworks.dto.CommentDto;
+import org.example.frameworks.dto.CursorPageDto;
+import org.example.frameworks.entity.Author;
+import org.example.frameworks.entity.Comment;
+import org.example.frameworks.repository.AuthorRepository;
+import org.example.frameworks.services.AuthorCRUDService;
+import org.example.frameworks.services.CommentCRUDService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение путей чтения на встроенной H2: загрузка управляемых сущностей
+ * с последующим копированием в DTO (entity*) против проекций JPQL сразу в DTO
+ * (projection*, то, что используют getPage/getAll/getById сервисов).
+ * Смотреть на gc.alloc.rate.norm (байт на операцию) и среднее время.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadPathBenchmark {
+
+    private static final int AUTHORS = 1000;
+    private static final int COMMENTS_PER_AUTHOR = 10;
+    private static final int PAGE = 100;
+
+    private ConfigurableApplicationContext context;
+
+    private EntityManager entityManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private AuthorCRUDService authorService;
+
+    private CommentCRUDService commentService;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringExampleApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.liquibase.enabled=false",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        entityManager = context.getBean(EntityManager.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        authorService = context.getBean(AuthorCRUDService.class);
+        commentService = context.getBean(CommentCRUDService.class);
+
+        List<Author> authors = new ArrayList<>();
+        for (int i = 0; i < AUTHORS; i++) {
+            Author author = new Author();
+            author.setFirstName("First" + i);
+            author.setLastName("Last" + i);
+            author.setRating((long) i);
+            authors.add(author);
+        }
+        authors = context.getBean(AuthorRepository.class).saveAll(authors);
+        List<CommentDto> comments = new ArrayList<>();
+        for (Author author : authors) {
+            for (int j = 0; j < COMMENTS_PER_AUTHOR; j++) {
+                CommentDto comment = new CommentDto();
+                comment.setText("Comment " + j + " of author " + author.getId());
+                comment.setAuthorId(author.getId());
+                comments.add(comment);
+            }
+        }
+        commentService.createAll(comments);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<AuthorDto> entityAuthorPage() {
+        return readOnlyTransaction.execute(status -> entityManager
+                .createQuery("select a from Author a where a.id > 0 order by a.id", Author.class)
+                .setMaxResults(PAGE)
+                .getResultList()
+                .stream()
+                .map(AuthorCRUDService::mapToDto)
+                .toList());
+    }
+
+    @Benchmark
+    public CursorPageDto<AuthorDto> projectionAuthorPage() {
+        return authorService.getPage(null, PAGE);
+    }
+
+    @Benchmark
+    public List<CommentDto> entityCommentPage() {
+        return readOnlyTransaction.execute(status -> entityManager
+                .createQuery("select c from Comment c where c.id > 0 order by c.id", Comment.class)
+                .setMaxResults(PAGE * COMMENTS_PER_AUTHOR)
+                .getResultList()
+                .stream()
+                .map(CommentCRUDService::mapToDto)
+                .toList());
+    }
+
+    @Benchmark
+    public CursorPageDto<CommentDto> projectionCommentPage() {
+        return commentService.getPage(null, PAGE * COMMENTS_PER_AUTHOR);
+    }
+}
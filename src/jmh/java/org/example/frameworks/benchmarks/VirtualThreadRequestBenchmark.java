@@ -0,0 +1,115 @@
+package org.example.frameworks.benchmarks;
+
+import org.example.frameworks.SpringExampleApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Те же запросы, что и в сравнении wrk из README, но без внешней базы и нагрузочного инструмента:
+ * приложение на встроенной H2 с Tomcat на платформенных (200 потоков) или виртуальных потоках,
+ * за вызов отправляется CONNECTIONS одновременных запросов по отдельным соединениям.
+ * GET /comment/1 отвечает из кэша, GET /comment?limit=50 читает базу через пул Hikari.
+ * Ограничитель одновременных запросов выключен, чтобы сравнивались только потоки.
+ * Результат в операциях в секунду - это запросы в секунду.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OperationsPerInvocation(VirtualThreadRequestBenchmark.CONNECTIONS)
+@Fork(1)
+public class VirtualThreadRequestBenchmark {
+
+    static final int CONNECTIONS = 1000;
+
+    private static final int COMMENTS = 100;
+
+    @Param({"false", "true"})
+    public boolean virtual;
+
+    @Param({"/comment/1", "/comment?limit=50"})
+    public String path;
+
+    private ConfigurableApplicationContext context;
+
+    private ExecutorService clientThreads;
+
+    private HttpClient client;
+
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(SpringExampleApplication.class)
+                .run("--server.port=0",
+                        "--app.threads.virtual=" + virtual,
+                        "--app.limits.enabled=false",
+                        "--spring.datasource.url=jdbc:h2:mem:threads;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.liquibase.enabled=false",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("insert into collection_version (name, version) values ('author', 0), ('comment', 0)");
+        jdbcTemplate.update("insert into author (id, first_name, last_name, rating, version) values (1, 'First', 'Last', 0, 0)");
+        for (int id = 1; id <= COMMENTS; id++) {
+            jdbcTemplate.update("insert into comment (id, text, author_id, creation_time, version) "
+                    + "values (?, ?, 1, current_timestamp, 0)", id, "Comment " + id);
+        }
+        clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clientThreads).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:"
+                        + context.getEnvironment().getProperty("local.server.port") + path))
+                .header("Accept", "application/json")
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clientThreads.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public int concurrentRequests() {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[CONNECTIONS];
+        for (int i = 0; i < CONNECTIONS; i++) {
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenAccept(response -> {
+                        if (response.statusCode() != 200) {
+                            throw new IllegalStateException(path + " returned " + response.statusCode());
+                        }
+                    });
+        }
+        CompletableFuture.allOf(responses).join();
+        return responses.length;
+    }
+}
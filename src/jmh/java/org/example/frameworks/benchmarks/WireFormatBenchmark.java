@@ -0,0 +1,97 @@
+package org.example.frameworks.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.MapperBuilder;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.example.frameworks.dto.AuthorDto;
+import org.example.frameworks.dto.CommentDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Сериализация ответа GET /author (страница авторов с комментариями)
+ * в JSON, CBOR и Smile: время сериализации и разбор обратно.
+ * Размер ответа на проводе (без сжатия и с gzip) печатается в Setup для каждого формата.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private static final int AUTHORS = 100;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"10"})
+    public int comments;
+
+    private ObjectMapper mapper;
+
+    private List<AuthorDto> authors;
+
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() throws IOException {
+        MapperBuilder<?, ?> builder = switch (format) {
+            case "cbor" -> CBORMapper.builder();
+            case "smile" -> SmileMapper.builder();
+            default -> JsonMapper.builder();
+        };
+        // Как у ObjectMapper Spring Boot: даты строками ISO-8601
+        mapper = builder.findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        authors = new ArrayList<>(AUTHORS);
+        LocalDateTime now = LocalDateTime.now();
+        int commentId = 1;
+        for (int i = 1; i <= AUTHORS; i++) {
+            AuthorDto author = new AuthorDto(i, "First" + i, "Last" + i, (long) i * 7, 3L);
+            List<CommentDto> authorComments = new ArrayList<>(comments);
+            for (int j = 0; j < comments; j++) {
+                authorComments.add(new CommentDto(commentId++, "Comment number " + j + " with some ordinary length text",
+                        i, 0L, now.minusMinutes(commentId)));
+            }
+            author.setComments(authorComments);
+            authors.add(author);
+        }
+        serialized = mapper.writeValueAsBytes(authors);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(serialized);
+        }
+        System.out.printf("%n%s: %d bytes, gzip %d bytes%n", format, serialized.length, gzipped.size());
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return mapper.writeValueAsBytes(authors);
+    }
+
+    @Benchmark
+    public AuthorDto[] deserialize() throws IOException {
+        return mapper.readValue(serialized, AuthorDto[].class);
+    }
+}
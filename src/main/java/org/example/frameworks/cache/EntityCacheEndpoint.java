@@ -0,0 +1,45 @@
+package org.example.frameworks.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * TODO: Данный класс представляет собой actuator-эндпоинт /actuator/entitycache,
+ *  который показывает счётчики попаданий, промахов и вытеснений кэшей сущностей.
+ */
+@Component
+@Endpoint(id = "entitycache")
+@RequiredArgsConstructor
+public class EntityCacheEndpoint {
+
+    /**
+     * Все кэши сущностей приложения.
+     */
+    private final List<ReadThroughCache<?>> caches;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (ReadThroughCache<?> cache : caches) {
+            CacheStats stats = cache.stats();
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("size", cache.size());
+            values.put("hits", stats.hitCount());
+            values.put("misses", stats.missCount());
+            values.put("hitRate", stats.hitRate());
+            values.put("loads", stats.loadCount());
+            values.put("loadFailures", stats.loadFailureCount());
+            values.put("evictions", stats.evictionCount());
+            result.put(cache.getName(), values);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.frameworks.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+
+/**
+ * TODO: Данный класс представляет собой ограниченный кэш DTO по идентификатору,
+ *  который стоит перед базой данных на путях чтения сервисов.
+ *  Записи вытесняются по размеру и по времени жизни, одновременные промахи
+ *  по одному ключу схлопываются в одну загрузку (single-flight).
+ */
+public class ReadThroughCache<V> {
+
+    /**
+     * Имя кэша для статистики.
+     */
+    private final String name;
+
+    /**
+     * Хранилище записей (Caffeine): вытеснение по размеру и TTL, статистика попаданий.
+     */
+    private final Cache<Integer, V> cache;
+
+    /**
+     * Создание кэша.
+     *
+     * @param name имя кэша
+     * @param maxSize максимальное количество записей
+     * @param ttl время жизни записи после загрузки
+     */
+    public ReadThroughCache(String name, long maxSize, Duration ttl) {
+        this.name = name;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Получение значения из кэша или загрузка при промахе.
+     * Пока одна загрузка по ключу выполняется, остальные потоки с тем же ключом её ждут.
+     * Исключение загрузчика пробрасывается вызывающему и ничего не кэширует.
+     *
+     * @param id идентификатор записи
+     * @param loader загрузка значения из базы данных
+     * @return значение из кэша или только что загруженное
+     */
+    public V get(Integer id, Function<Integer, V> loader) {
+        return cache.get(id, loader);
+    }
+
+    /**
+     * Проверка наличия записи в кэше без обращения к базе данных.
+     *
+     * @param id идентификатор записи
+     * @return true, если запись сейчас есть в кэше
+     */
+    public boolean contains(Integer id) {
+        return cache.getIfPresent(id) != null;
+    }
+
+    /**
+     * Удаление записи после изменения или удаления в базе данных.
+     *
+     * @param id идентификатор записи
+     */
+    public void invalidate(Integer id) {
+        if (id != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * Удаление всех записей, когда изменённые идентификаторы заранее неизвестны.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.frameworks.config;
+
+import org.example.frameworks.cache.ReadThroughCache;
+import org.example.frameworks.dto.AuthorDto;
+import org.example.frameworks.dto.CommentDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+
+/**
+ * TODO: Конфигурация кэшей сущностей.
+ *  Размер и время жизни записей задаются в application.yml (app.cache.*).
+ */
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public ReadThroughCache<AuthorDto> authorCache(@Value("${app.cache.authors.max-size:10000}") long maxSize,
+                                                   @Value("${app.cache.authors.ttl:5m}") Duration ttl) {
+        return new ReadThroughCache<>("authors", maxSize, ttl);
+    }
+
+    @Bean
+    public ReadThroughCache<CommentDto> commentCache(@Value("${app.cache.comments.max-size:50000}") long maxSize,
+                                                     @Value("${app.cache.comments.ttl:5m}") Duration ttl) {
+        return new ReadThroughCache<>("comments", maxSize, ttl);
+    }
+}
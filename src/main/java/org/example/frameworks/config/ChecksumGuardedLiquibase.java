@@ -0,0 +1,81 @@
+package org.example.frameworks.config;
+
+import liquibase.exception.LiquibaseException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+
+/**
+ * TODO: Данный класс представляет собой запуск Liquibase, который пропускается целиком,
+ *  если файл changelog не менялся с последнего успешного обновления базы данных.
+ *  Контрольная сумма SHA-256 файла хранится в таблице liquibase_checksum,
+ *  поэтому при старте без изменений выполняется один SELECT вместо разбора changelog,
+ *  блокировки DATABASECHANGELOGLOCK и сверки всех changeSet.
+ *  Проверяется только сам файл changelog: подключаемые через include файлы не учитываются.
+ */
+@Slf4j
+public class ChecksumGuardedLiquibase extends liquibase.integration.spring.SpringLiquibase {
+
+    /**
+     * spring.liquibase.enabled: false - база данных не проверяется и не обновляется.
+     */
+    private boolean enabled = true;
+
+    @Override
+    public void setShouldRun(boolean shouldRun) {
+        super.setShouldRun(shouldRun);
+        this.enabled = shouldRun;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws LiquibaseException {
+        if (enabled && !isDropFirst()) {
+            String checksum = checksum();
+            JdbcTemplate jdbc = new JdbcTemplate(getDataSource());
+            if (checksum.equals(storedChecksum(jdbc))) {
+                log.info("Changelog {} is unchanged (sha-256 {}), skipping Liquibase update", getChangeLog(), checksum);
+                return;
+            }
+            super.afterPropertiesSet();
+            storeChecksum(jdbc, checksum);
+            return;
+        }
+        super.afterPropertiesSet();
+    }
+
+    private String checksum() throws LiquibaseException {
+        try (InputStream in = getResourceLoader().getResource(getChangeLog()).getInputStream()) {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(in.readAllBytes()));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new LiquibaseException("Cannot read changelog " + getChangeLog(), e);
+        }
+    }
+
+    /**
+     * @return сохранённая контрольная сумма или null, если её нет (или таблицы ещё нет)
+     */
+    private String storedChecksum(JdbcTemplate jdbc) {
+        try {
+            return jdbc.query("SELECT checksum FROM liquibase_checksum WHERE change_log = ?",
+                    rs -> rs.next() ? rs.getString(1) : null, getChangeLog());
+        } catch (DataAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Одна атомарная команда: экземпляры, одновременно закончившие обновление,
+     * не получают нарушение первичного ключа на INSERT после пустого UPDATE.
+     */
+    private void storeChecksum(JdbcTemplate jdbc, String checksum) {
+        jdbc.update("INSERT INTO liquibase_checksum (change_log, checksum) VALUES (?, ?) "
+                + "ON CONFLICT (change_log) DO UPDATE SET checksum = EXCLUDED.checksum", getChangeLog(), checksum);
+    }
+}
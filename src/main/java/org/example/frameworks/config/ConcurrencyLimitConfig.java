@@ -0,0 +1,60 @@
+package org.example.frameworks.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.example.frameworks.limits.AdaptiveLimiter;
+import org.example.frameworks.limits.ConcurrencyLimitFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+
+/**
+ * TODO: Адаптивное ограничение одновременных запросов к API (app.limits.enabled=true).
+ *  Пределы чтений и записей настраиваются отдельно в app.limits.reads.* и app.limits.writes.*.
+ *  Метрики: http.concurrency.limit, http.concurrency.in_flight, http.concurrency.rejected (тег group).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.limits.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public AdaptiveLimiter readLimiter(@Value("${app.limits.reads.initial-limit:100}") int initialLimit,
+                                       @Value("${app.limits.reads.max-limit:1000}") int maxLimit,
+                                       @Value("${app.limits.reads.latency-threshold:200ms}") Duration latencyThreshold,
+                                       @Value("${app.limits.backoff-ratio:0.9}") double backoffRatio,
+                                       MeterRegistry registry) {
+        return register(new AdaptiveLimiter("reads", initialLimit, 1, maxLimit, latencyThreshold, backoffRatio), registry);
+    }
+
+    @Bean
+    public AdaptiveLimiter writeLimiter(@Value("${app.limits.writes.initial-limit:20}") int initialLimit,
+                                        @Value("${app.limits.writes.max-limit:200}") int maxLimit,
+                                        @Value("${app.limits.writes.latency-threshold:500ms}") Duration latencyThreshold,
+                                        @Value("${app.limits.backoff-ratio:0.9}") double backoffRatio,
+                                        MeterRegistry registry) {
+        return register(new AdaptiveLimiter("writes", initialLimit, 1, maxLimit, latencyThreshold, backoffRatio), registry);
+    }
+
+    @Bean
+    public ConcurrencyLimitFilter concurrencyLimitFilter(AdaptiveLimiter readLimiter, AdaptiveLimiter writeLimiter,
+                                                         @Value("${app.limits.retry-after:1s}") Duration retryAfter) {
+        return new ConcurrencyLimitFilter(readLimiter, writeLimiter, Math.max(1, retryAfter.toSeconds()));
+    }
+
+    private static AdaptiveLimiter register(AdaptiveLimiter limiter, MeterRegistry registry) {
+        Gauge.builder("http.concurrency.limit", limiter, AdaptiveLimiter::getLimit)
+                .tag("group", limiter.getName())
+                .register(registry);
+        Gauge.builder("http.concurrency.in_flight", limiter, AdaptiveLimiter::getInFlight)
+                .tag("group", limiter.getName())
+                .register(registry);
+        registry.more().counter("http.concurrency.rejected", Tags.of("group", limiter.getName()), limiter,
+                AdaptiveLimiter::getRejected);
+        return limiter;
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.frameworks.config;
+
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseDataSource;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+
+/**
+ * TODO: Запуск Liquibase только при изменении changelog (app.liquibase.skip-if-unchanged=true).
+ *  Заменяет бин SpringLiquibase из автоконфигурации Spring Boot, настройки берутся из spring.liquibase.*.
+ */
+@Configuration
+@ConditionalOnExpression("${app.liquibase.skip-if-unchanged:false} and ${spring.liquibase.enabled:true}")
+@EnableConfigurationProperties(LiquibaseProperties.class)
+public class LiquibaseConfig {
+
+    @Bean
+    public SpringLiquibase liquibase(@LiquibaseDataSource ObjectProvider<DataSource> liquibaseDataSource,
+                                     ObjectProvider<DataSource> dataSource,
+                                     LiquibaseProperties properties) {
+        ChecksumGuardedLiquibase liquibase = new ChecksumGuardedLiquibase();
+        liquibase.setDataSource(liquibaseDataSource.getIfAvailable(dataSource::getObject));
+        liquibase.setChangeLog(properties.getChangeLog());
+        liquibase.setDropFirst(properties.isDropFirst());
+        liquibase.setDefaultSchema(properties.getDefaultSchema());
+        liquibase.setShouldRun(properties.isEnabled());
+        return liquibase;
+    }
+}
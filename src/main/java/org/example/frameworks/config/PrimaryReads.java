@@ -0,0 +1,57 @@
+package org.example.frameworks.config;
+
+import java.util.function.Supplier;
+
+
+/**
+ * TODO: Данный класс представляет собой явное направление чтений на основную базу.
+ *  Нужен для чтений, результат которых запоминается в памяти (кэши, рейтинг, поисковый индекс):
+ *  данные отстающей реплики, прочитанные сразу после сброса кэша, остались бы в нём до конца TTL.
+ *  Действует на транзакции, соединение которых выбирается внутри call.
+ */
+public final class PrimaryReads {
+
+    /**
+     * Глубина вложенных вызовов call (null - вне call).
+     */
+    private static final ThreadLocal<Integer> DEPTH = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    /**
+     * Выполнение действия с чтением из основной базы.
+     *
+     * @param action действие, которое читает данные
+     * @return результат действия
+     */
+    public static <T> T call(Supplier<T> action) {
+        Integer depth = DEPTH.get();
+        DEPTH.set(depth == null ? 1 : depth + 1);
+        try {
+            return action.get();
+        } finally {
+            if (depth == null) {
+                DEPTH.remove();
+            } else {
+                DEPTH.set(depth);
+            }
+        }
+    }
+
+    /**
+     * Выполнение действия с чтением из основной базы.
+     *
+     * @param action действие, которое читает данные
+     */
+    public static void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    static boolean isActive() {
+        return DEPTH.get() != null;
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.frameworks.config;
+
+
+/**
+ * TODO: Данный класс представляет собой состояние маршрутизации текущего HTTP-запроса.
+ *  После записи чтения этого запроса не уходят на реплики, которые могут ещё не получить изменение.
+ *  Все чтения запроса идут на одну и ту же реплику (а после её отказа - на основную базу),
+ *  поэтому каждое следующее чтение видит данные не старее предыдущего:
+ *  версия коллекции для ETag, прочитанная первой, не может оказаться новее самих данных.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<State> STATE = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    static void begin() {
+        STATE.set(new State());
+    }
+
+    static void end() {
+        STATE.remove();
+    }
+
+    static void markWritten() {
+        State state = STATE.get();
+        if (state != null) {
+            state.wrote = true;
+        }
+    }
+
+    /**
+     * @return true, если текущий запрос уже писал в основную базу
+     */
+    public static boolean hasWritten() {
+        State state = STATE.get();
+        return state != null && state.wrote;
+    }
+
+    /**
+     * @return источник чтений текущего запроса (null - ещё не выбран или вне запроса)
+     */
+    static Object pinnedTarget() {
+        State state = STATE.get();
+        return state != null ? state.target : null;
+    }
+
+    /**
+     * Закрепление источника чтений за текущим запросом (вне запроса ничего не делает).
+     */
+    static void pin(Object target) {
+        State state = STATE.get();
+        if (state != null) {
+            state.target = target;
+        }
+    }
+
+    private static final class State {
+
+        private boolean wrote;
+
+        private Object target;
+    }
+}
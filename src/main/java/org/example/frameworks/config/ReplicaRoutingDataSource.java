@@ -0,0 +1,183 @@
+package org.example.frameworks.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+
+/**
+ * TODO: Данный класс представляет собой источник данных, который направляет
+ *  соединения read-only транзакций на реплики, а все остальные - на основную базу.
+ *  Недоступная реплика исключается до следующей успешной проверки,
+ *  если доступных реплик нет - чтение идёт на основную базу.
+ *  Реплика выбирается один раз на HTTP-запрос (ReadYourWrites), чтения внутри
+ *  PrimaryReads всегда идут на основную базу.
+ *  Используется через LazyConnectionDataSourceProxy, чтобы соединение выбиралось
+ *  в момент первого запроса, когда признак read-only транзакции уже известен.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final String PRIMARY = "primary";
+
+    private final List<HikariDataSource> replicas;
+
+    private final RoutingDataSourceProperties.Strategy strategy;
+
+    private final boolean readYourWrites;
+
+    /**
+     * 1 - реплика доступна, 0 - исключена после ошибки соединения.
+     */
+    private final AtomicIntegerArray healthy;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final ScheduledExecutorService healthCheck = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "replica-health-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+                                    RoutingDataSourceProperties.Strategy strategy, boolean readYourWrites,
+                                    Duration healthCheckInterval) {
+        this.replicas = replicas;
+        this.strategy = strategy;
+        this.readYourWrites = readYourWrites;
+        this.healthy = new AtomicIntegerArray(replicas.size());
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+            healthy.set(i, 1);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        long interval = healthCheckInterval.toMillis();
+        healthCheck.scheduleWithFixedDelay(this::checkReplicas, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Остановка проверок и закрытие пулов реплик. Пул основной базы закрывается отдельно.
+     */
+    @Override
+    public void close() {
+        healthCheck.shutdownNow();
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                ReadYourWrites.markWritten();
+            }
+            return PRIMARY;
+        }
+        if (PrimaryReads.isActive() || (readYourWrites && ReadYourWrites.hasWritten())) {
+            return PRIMARY;
+        }
+        Object pinned = ReadYourWrites.pinnedTarget();
+        if (pinned instanceof Integer replica) {
+            // Другая реплика может отставать сильнее: после отказа закреплённой читаем с основной базы
+            return healthy.get(replica) == 1 ? replica : PRIMARY;
+        }
+        if (pinned != null) {
+            return pinned;
+        }
+        int replica = selectReplica();
+        Object target = replica >= 0 ? replica : PRIMARY;
+        ReadYourWrites.pin(target);
+        return target;
+    }
+
+    /**
+     * При ошибке соединения с репликой она исключается, а чтение повторяется на основной базе.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        if (key instanceof Integer replica) {
+            try {
+                return replicas.get(replica).getConnection();
+            } catch (SQLException e) {
+                markUnhealthy(replica, e);
+                ReadYourWrites.pin(PRIMARY);
+            }
+        }
+        return ((javax.sql.DataSource) getResolvedDefaultDataSource()).getConnection();
+    }
+
+    /**
+     * Проверка реплик: исключённые возвращаются после успешного соединения, доступные исключаются при ошибке.
+     */
+    public void checkReplicas() {
+        for (int i = 0; i < replicas.size(); i++) {
+            try (Connection connection = replicas.get(i).getConnection()) {
+                if (!connection.isValid(2)) {
+                    throw new SQLException("Connection is not valid");
+                }
+                if (healthy.getAndSet(i, 1) == 0) {
+                    log.info("Replica {} is available again", replicas.get(i).getJdbcUrl());
+                }
+            } catch (SQLException e) {
+                markUnhealthy(i, e);
+            }
+        }
+    }
+
+    private void markUnhealthy(int replica, SQLException e) {
+        if (healthy.getAndSet(replica, 0) == 1) {
+            log.warn("Replica {} is unavailable, reading from primary: {}", replicas.get(replica).getJdbcUrl(), e.getMessage());
+        }
+    }
+
+    /**
+     * @return индекс выбранной доступной реплики или -1, если доступных нет
+     */
+    private int selectReplica() {
+        int size = replicas.size();
+        if (strategy == RoutingDataSourceProperties.Strategy.LEAST_BUSY) {
+            int best = -1;
+            int bestLoad = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                if (healthy.get(i) == 1) {
+                    int load = load(replicas.get(i));
+                    if (load < bestLoad) {
+                        best = i;
+                        bestLoad = load;
+                    }
+                }
+            }
+            return best;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            int candidate = (start + i) % size;
+            if (healthy.get(candidate) == 1) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    private static int load(HikariDataSource pool) {
+        HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+        return bean != null ? bean.getActiveConnections() + bean.getThreadsAwaitingConnection() : 0;
+    }
+}
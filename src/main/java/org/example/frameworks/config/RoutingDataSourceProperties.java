@@ -0,0 +1,60 @@
+package org.example.frameworks.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * TODO: Настройки маршрутизации чтений на реплики (app.datasource.routing.*).
+ *  Основная база данных по-прежнему задаётся в spring.datasource.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.datasource.routing")
+public class RoutingDataSourceProperties {
+
+    /**
+     * Стратегия выбора реплики для очередного чтения.
+     */
+    public enum Strategy {
+        /**
+         * Реплики по очереди.
+         */
+        ROUND_ROBIN,
+        /**
+         * Реплика с наименьшим числом занятых соединений и ожидающих потоков.
+         */
+        LEAST_BUSY
+    }
+
+    private boolean enabled;
+
+    private Strategy strategy = Strategy.ROUND_ROBIN;
+
+    /**
+     * true - после первой записи остаток HTTP-запроса читает только с основной базы.
+     */
+    private boolean readYourWrites = true;
+
+    /**
+     * Как часто проверять недоступные и доступные реплики.
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(10);
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 20;
+    }
+}
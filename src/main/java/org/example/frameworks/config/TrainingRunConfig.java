@@ -0,0 +1,32 @@
+package org.example.frameworks.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+
+/**
+ * TODO: Завершение приложения сразу после старта (app.startup.exit-on-ready=true).
+ *  Используется для обучающего запуска, после которого JVM записывает архив CDS
+ *  (-XX:ArchiveClassesAtExit), и для запуска миграций Liquibase отдельной задачей.
+ *  Свойство проверяется при старте, а не условием на бин: при AOT-обработке
+ *  условия @Conditional вычисляются один раз во время сборки.
+ */
+@Slf4j
+@Configuration
+public class TrainingRunConfig {
+
+    @Value("${app.startup.exit-on-ready:false}")
+    private boolean exitOnReady;
+
+    @EventListener
+    public void exitOnReady(ApplicationReadyEvent event) {
+        if (exitOnReady) {
+            log.info("Started in {} ms, exiting (app.startup.exit-on-ready)", event.getTimeTaken().toMillis());
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.frameworks.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.Executors;
+
+
+/**
+ * TODO: Режим обработки запросов на виртуальных потоках (app.threads.virtual=true).
+ *  Tomcat и асинхронные ответы (StreamingResponseBody) выполняются на виртуальных потоках,
+ *  поэтому число одновременных запросов к базе данных ограничивает не пул потоков Tomcat,
+ *  а размер пула соединений Hikari (spring.datasource.hikari.maximum-pool-size).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    /**
+     * Каждый HTTP-запрос обрабатывается в отдельном виртуальном потоке.
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Исполнитель для асинхронных ответов Spring MVC (потоковые выгрузки)
+     * и @Async-задач на виртуальных потоках.
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
@@ -1,11 +1,27 @@
 package org.example.frameworks.controllers;
 
 import lombok.RequiredArgsConstructor;
+import org.example.frameworks.dto.ActivityBucketDto;
 import org.example.frameworks.dto.AuthorDto;
+import org.example.frameworks.dto.CommentDto;
+import org.example.frameworks.dto.CursorPageDto;
+import org.example.frameworks.dto.ImportResultDto;
 import org.example.frameworks.services.AuthorCRUDService;
+import org.example.frameworks.services.CollectionVersions;
+import org.example.frameworks.services.CommentCRUDService;
+import org.example.frameworks.services.CsvCopyService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
 
 
 
@@ -29,11 +45,123 @@ public class AuthorController {
 
     private final AuthorCRUDService authorService;
 
+    /**
+     * Сервисный слой для работы с комментариями (комментарии конкретного автора).
+     */
+    private final CommentCRUDService commentService;
+
+    /**
+     * Массовая загрузка и выгрузка CSV через COPY.
+     */
+    private final CsvCopyService csvCopyService;
+
 
 
+    /**
+     * Получение страницы авторов по курсору.
+     * ETag строится из счётчиков изменений таблиц, прочитанных в одной транзакции со страницей,
+     * поэтому ответ 304 не требует чтения авторов, их преобразования в DTO и сериализации.
+     * С fields/include читаются только запрошенные колонки, комментарии - только при include=comments.
+     * С includePending=true к рейтингу добавляются ещё не записанные увеличения (без ETag).
+     */
     @GetMapping
-    public Collection<AuthorDto> getAll() { // Получение списка всех авторов.
-        return authorService.getAll();
+    public ResponseEntity<CursorPageDto<AuthorDto>> getAll(@RequestParam(required = false) String after,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) String fields,
+                                                           @RequestParam(required = false) String include,
+                                                           @RequestParam(defaultValue = "false") boolean includePending,
+                                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (includePending) {
+            return ResponseEntity.ok(authorService.getPage(after, limit, fields, include, true));
+        }
+        CollectionVersions.Versioned<CursorPageDto<AuthorDto>> page = authorService.getVersionedPage(after, limit,
+                fields, include, version -> ETags.matches(ifNoneMatch, ETags.of(version)));
+        String etag = ETags.of(page.version());
+        if (page.value() == null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(page.value());
+    }
+
+    /**
+     * Получение нескольких авторов одним запросом по списку идентификаторов.
+     * Без fields и include авторы возвращаются вместе с комментариями, как в GET /author.
+     */
+    @GetMapping(params = "ids")
+    public List<AuthorDto> getByIds(@RequestParam List<Integer> ids,
+                                    @RequestParam(required = false) String fields,
+                                    @RequestParam(required = false) String include,
+                                    @RequestParam(defaultValue = "false") boolean includePending) {
+        return authorService.getByIds(ids, fields, include, includePending);
+    }
+
+    @GetMapping("/top")
+    public List<AuthorDto> getTop(@RequestParam(defaultValue = "10") int n) { // Лучшие авторы по рейтингу.
+        return authorService.getTop(n);
+    }
+
+    /**
+     * Получение комментариев автора за интервал времени [from, to),
+     * упорядоченных по времени создания, страницами по курсору.
+     */
+    @GetMapping("/{id}/comments")
+    public CursorPageDto<CommentDto> getComments(@PathVariable Integer id,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                 @RequestParam(required = false) String after,
+                                                 @RequestParam(required = false) Integer limit) {
+        return commentService.getPageByTime(id, from, to, after, limit);
+    }
+
+    /**
+     * Количество комментариев автора по часам (granularity=hour) или дням (granularity=day)
+     * за интервал [from, to). Читается из свёртки, а не из таблицы комментариев.
+     */
+    @GetMapping("/{id}/activity")
+    public List<ActivityBucketDto> getActivity(@PathVariable Integer id,
+                                               @RequestParam(defaultValue = "hour") String granularity,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return commentService.getActivity(id, granularity, from, to);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() { // Потоковая выгрузка всех авторов в NDJSON.
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(authorService::exportNdjson);
+    }
+
+    /**
+     * Потоковая выгрузка всех авторов в CSV (Accept: text/csv) через COPY TO STDOUT.
+     */
+    @GetMapping(value = "/export", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> exportCsv() {
+        csvCopyService.requireSupported();
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=authors.csv")
+                .body(csvCopyService::exportAuthors);
+    }
+
+    /**
+     * Массовая загрузка авторов из CSV (id, first_name, last_name, rating) через COPY FROM STDIN.
+     * Авторы с существующим id обновляются, без id - создаются.
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ImportResultDto importCsv(InputStream body) throws IOException {
+        return csvCopyService.importAuthors(body);
+    }
+
+    /**
+     * Увеличение рейтинга автора (голос) без перезаписи автора целиком.
+     * Изменение накапливается в памяти и записывается в базу данных пакетом в фоне,
+     * поэтому ответ 202 возвращается сразу.
+     */
+    @PostMapping("/{id}/rating/increment")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public void incrementRating(@PathVariable Integer id, @RequestParam(defaultValue = "1") long delta) {
+        authorService.incrementRating(id, delta);
     }
 
     @PostMapping
@@ -47,8 +175,30 @@ public class AuthorController {
         authorService.update(authorDto);
     }
 
-    @DeleteMapping
+    /**
+     * Частичное обновление автора: меняются только переданные поля, комментарии не затрагиваются.
+     * Версия для проверки берётся из If-Match (ETag автора) или из поля version.
+     * If-Match: * - без проверки версии. Если версия изменилась, возвращается 412 Precondition Failed.
+     */
+    @PatchMapping("/{id}")
+    public void patch(@PathVariable Integer id, @RequestBody AuthorDto authorDto,
+                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        authorService.patch(id, authorDto, ETags.expectedVersion(ifMatch, id, authorDto.getVersion()));
+    }
+
+    @DeleteMapping("/{id}")
     public void delete(@PathVariable Integer id) {  // Удаление автора по идентификатору.
         authorService.delete(id);
     }
+
+    /**
+     * Удаление нескольких авторов вместе с их комментариями одним запросом.
+     *
+     * @param ids идентификаторы авторов через запятую
+     * @return количество удалённых авторов
+     */
+    @DeleteMapping
+    public int deleteAll(@RequestParam List<Integer> ids) {
+        return authorService.deleteAll(ids);
+    }
 }
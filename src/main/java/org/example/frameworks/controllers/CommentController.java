@@ -1,10 +1,26 @@
 package org.example.frameworks.controllers;
 
+import org.example.frameworks.dto.BatchResultDto;
 import org.example.frameworks.dto.CommentDto;
+import org.example.frameworks.dto.CursorPageDto;
+import org.example.frameworks.dto.ImportResultDto;
+import org.example.frameworks.feed.CommentFeed;
+import org.example.frameworks.services.CollectionVersions;
 import org.example.frameworks.services.CommentCRUDService;
+import org.example.frameworks.services.CsvCopyService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
 
 
 
@@ -25,38 +41,166 @@ public class CommentController {
      */
     private final CommentCRUDService commentService;
 
+    /**
+     * Лента новых комментариев для подписки по SSE.
+     */
+    private final CommentFeed commentFeed;
+
+    /**
+     * Массовая загрузка и выгрузка CSV через COPY.
+     */
+    private final CsvCopyService csvCopyService;
+
     /**
      * Конструктор для инициализации контроллера.
      * @param commentService сервис для работы с комментариями
+     * @param commentFeed лента новых комментариев
+     * @param csvCopyService массовая загрузка и выгрузка CSV
      */
 
-    public CommentController(CommentCRUDService commentService) {
+    public CommentController(CommentCRUDService commentService, CommentFeed commentFeed, CsvCopyService csvCopyService) {
         this.commentService = commentService;
+        this.commentFeed = commentFeed;
+        this.csvCopyService = csvCopyService;
     }
 
     /**
      * Получение комментария по его идентификатору.
+     * Если версия у клиента совпадает с версией в базе данных (If-None-Match),
+     * возвращается 304 без загрузки комментария.
      *
      * @param id идентификатор комментария
+     * @param ifNoneMatch ETag, который уже есть у клиента
      * @return DTO объект комментария
      */
 
 
     @GetMapping("/{id}")
-    public CommentDto getCommentById(@PathVariable Integer id) {
-        return commentService.getById(id);
+    public ResponseEntity<CommentDto> getCommentById(@PathVariable Integer id,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            String etag = ETags.of(id, commentService.getVersion(id));
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+            }
+        }
+        CommentDto commentDto = commentService.getById(id);
+        return ResponseEntity.ok().eTag(ETags.of(id, commentDto.getVersion())).varyBy(HttpHeaders.ACCEPT).body(commentDto);
 
     }
 
     /**
-     * Получение всех комментариев.
+     * Получение страницы комментариев по курсору.
+     * Размер страницы ограничивается сервером, следующая страница
+     * запрашивается по курсору nextCursor из ответа.
+     * Если указан from или to, комментарии выбираются за интервал времени
+     * и упорядочиваются по времени создания.
      *
-     * @return коллекция DTO объектов комментариев
+     * @param from начало интервала времени создания (ISO-8601)
+     * @param to конец интервала времени создания, не включая (ISO-8601)
+     * @param after курсор, после которого начинается страница
+     * @param limit размер страницы
+     * @param ifNoneMatch ETag, который уже есть у клиента
+     * @return страница DTO объектов комментариев (или 304, если таблица не менялась)
      */
 
     @GetMapping
-    public Collection<CommentDto> getAllComments() {
-        return commentService.getAll();
+    public ResponseEntity<CursorPageDto<CommentDto>> getAllComments(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                    @RequestParam(required = false) String after,
+                                                                    @RequestParam(required = false) Integer limit,
+                                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        CollectionVersions.Versioned<CursorPageDto<CommentDto>> page = commentService.getVersionedPage(from, to,
+                after, limit, version -> ETags.matches(ifNoneMatch, ETags.of(version)));
+        String etag = ETags.of(page.version());
+        if (page.value() == null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(page.value());
+    }
+
+    /**
+     * Получение нескольких комментариев одним запросом вместо GET /comment/{id} на каждый.
+     *
+     * @param ids идентификаторы комментариев через запятую
+     * @param fields поля комментария через запятую (например, id,text), без параметра - все
+     * @return найденные DTO объекты комментариев, упорядоченные по id
+     */
+    @GetMapping(params = "ids")
+    public List<CommentDto> getCommentsByIds(@RequestParam List<Integer> ids,
+                                             @RequestParam(required = false) String fields) {
+        return commentService.getByIds(ids, fields);
+    }
+
+    /**
+     * Поиск комментариев по словам в тексте.
+     * Возвращаются комментарии, содержащие все слова запроса: сначала те, где слова запроса
+     * встречаются чаще, при равном числе вхождений - от новых к старым.
+     *
+     * @param q строка запроса
+     * @param limit сколько комментариев вернуть
+     * @return найденные DTO объекты комментариев
+     */
+
+    @GetMapping("/search")
+    public List<CommentDto> searchComments(@RequestParam String q,
+                                           @RequestParam(required = false) Integer limit) {
+        return commentService.search(q, limit);
+    }
+
+    /**
+     * Подписка на новые комментарии (Server-Sent Events) вместо опроса GET /comment.
+     * Каждый комментарий приходит событием comment, пропущенные отставшим клиентом
+     * события - одним событием gap. При переподключении браузер передаёт Last-Event-ID,
+     * и лента продолжается с того же места.
+     *
+     * @param authorId идентификатор автора (без параметра - комментарии всех авторов)
+     * @param lastEventId идентификатор последнего полученного события
+     * @return поток событий
+     */
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamComments(@RequestParam(required = false) Integer authorId,
+                                     @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return commentFeed.subscribe(authorId, lastEventId);
+    }
+
+    /**
+     * Потоковая выгрузка всех комментариев в формате NDJSON.
+     * Ответ пишется по мере чтения курсора, без сборки всей таблицы в памяти.
+     *
+     * @return поток строк JSON, по одному комментарию на строку
+     */
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportComments() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(commentService::exportNdjson);
+    }
+
+    /**
+     * Потоковая выгрузка всех комментариев в CSV (Accept: text/csv) через COPY TO STDOUT.
+     */
+    @GetMapping(value = "/export", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> exportCommentsCsv() {
+        csvCopyService.requireSupported();
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=comments.csv")
+                .body(csvCopyService::exportComments);
+    }
+
+    /**
+     * Массовая загрузка комментариев из CSV (author_id, text, creation_time) через COPY FROM STDIN.
+     * Строки с несуществующим автором отклоняются, их номера возвращаются в ответе.
+     *
+     * @param body CSV-файл, читается потоком
+     * @return количество загруженных и отклонённых строк и скорость загрузки
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ImportResultDto importCsv(InputStream body) throws IOException {
+        return csvCopyService.importComments(body);
     }
 
     /**
@@ -71,6 +215,18 @@ public class CommentController {
         commentService.create(commentDto);
     }
 
+    /**
+     * Пакетное создание комментариев.
+     *
+     * @param commentDtos данные комментариев для создания
+     * @return идентификаторы созданных комментариев и ошибки по отдельным элементам
+     */
+
+    @PostMapping("/batch")
+    public BatchResultDto createComments(@RequestBody List<CommentDto> commentDtos) {
+        return commentService.createAll(commentDtos);
+    }
+
     /**
      * Обновление существующего комментария.
      *
@@ -85,6 +241,23 @@ public class CommentController {
 
     }
 
+    /**
+     * Частичное обновление комментария: меняются только переданные поля (text, authorId).
+     * Версия для проверки берётся из If-Match (ETag комментария) или из поля version,
+     * If-Match: * - без проверки версии. Если версия изменилась, возвращается 412 Precondition Failed.
+     * Неизвестный authorId - 400 Bad Request.
+     *
+     * @param id идентификатор комментария
+     * @param commentDto новые значения полей
+     * @param ifMatch ETag комментария, который клиент изменяет
+     */
+
+    @PatchMapping("/{id}")
+    public void patchComment(@PathVariable Integer id, @RequestBody CommentDto commentDto,
+                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        commentService.patch(id, commentDto, ETags.expectedVersion(ifMatch, id, commentDto.getVersion()));
+    }
+
     /**
      * Удаление комментария по его идентификатору.
      *
@@ -95,4 +268,21 @@ public class CommentController {
     public void deleteComment(@PathVariable Integer id) {
         commentService.delete(id);
     }
+
+    /**
+     * Удаление комментариев автора и/или за интервал времени одним запросом.
+     * Хотя бы один параметр обязателен.
+     *
+     * @param authorId идентификатор автора
+     * @param from начало интервала времени создания (ISO-8601)
+     * @param to конец интервала времени создания, не включая (ISO-8601)
+     * @return количество удалённых комментариев
+     */
+
+    @DeleteMapping
+    public int deleteComments(@RequestParam(required = false) Integer authorId,
+                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return commentService.deleteAll(authorId, from, to);
+    }
 }
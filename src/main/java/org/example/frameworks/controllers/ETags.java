@@ -0,0 +1,103 @@
+package org.example.frameworks.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+
+
+/**
+ * TODO: Вспомогательный класс для условных GET-запросов:
+ *  построение слабых ETag и сравнение их с заголовком If-None-Match,
+ *  разбор If-Match для условного изменения.
+ *  ETag слабые: версия данных одна для представлений JSON/CBOR/Smile и для сжатого ответа,
+ *  а Tomcat не сжимает ответы со строгим ETag.
+ *  Отступление от RFC 9110: If-Match должен сравниваться строго, и слабый тег в нём никогда не совпадает.
+ *  Здесь If-Match сравнивается по идентификатору и версии записи из тега: ETag записи меняется
+ *  с каждым изменением её version, поэтому слабый тег так же защищает от потерянного обновления,
+ *  как строгий, а клиент может передать в If-Match тот ETag, который получил в GET.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Построение слабого ETag из частей, например W/"17.3".
+     *
+     * @param parts части тега (идентификатор, версия и т.п.)
+     * @return ETag в кавычках с префиксом W/
+     */
+    static String of(Object... parts) {
+        StringBuilder etag = new StringBuilder("W/\"");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                etag.append('.');
+            }
+            etag.append(parts[i]);
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * Ожидаемая версия записи для условного изменения.
+     * If-Match: * означает любую текущую версию (запись должна существовать),
+     * ETag вида W/"17.3" - версию 3 записи 17, без заголовка берётся версия из тела запроса.
+     * Префикс W/ не учитывается (см. описание класса).
+     *
+     * @param ifMatch значение заголовка If-Match (может быть null)
+     * @param id идентификатор изменяемой записи
+     * @param bodyVersion поле version из тела запроса (может быть null)
+     * @return версия записи или null, если подходит любая
+     * @throws ResponseStatusException 400, если тег не вида "идентификатор.версия",
+     *                                 412, если ни один тег не относится к записи id
+     */
+    static Long expectedVersion(String ifMatch, Object id, Long bodyVersion) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return bodyVersion;
+        }
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return null;
+            }
+            tag = opaque(tag).replace("\"", "");
+            int dot = tag.lastIndexOf('.');
+            Long version;
+            try {
+                version = dot > 0 ? Long.valueOf(tag.substring(dot + 1)) : null;
+            } catch (NumberFormatException e) {
+                version = null;
+            }
+            if (version == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid If-Match: " + ifMatch);
+            }
+            if (tag.substring(0, dot).equals(String.valueOf(id))) {
+                return version;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match does not match resource " + id);
+    }
+
+    /**
+     * Проверка, что у клиента уже есть актуальная версия ответа.
+     * If-None-Match сравнивается слабо: префикс W/ не учитывается.
+     *
+     * @param ifNoneMatch значение заголовка If-None-Match (может быть null)
+     * @param etag текущий ETag ресурса
+     * @return true, если можно ответить 304 Not Modified
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String opaque = opaque(etag);
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .anyMatch(candidate -> candidate.equals("*") || opaque(candidate).equals(opaque));
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.frameworks.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * TODO: Данный класс представляет собой DTO
+ *  количества комментариев автора за один интервал (час или день).
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ActivityBucketDto {
+    private LocalDateTime bucketStart; // Начало интервала
+    private long count; // Количество комментариев за интервал
+}
@@ -1,6 +1,8 @@
 package org.example.frameworks.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.List;
 
@@ -10,8 +12,11 @@ import java.util.List;
  *  (Data Transfer Object) для передачи данных
  *  об авторе между слоями приложения.
  *  Он содержит основную информацию об авторе и связанные с ним комментарии.
+ *  Незаполненные поля (частичный ответ по fields=...) не попадают в JSON.
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Data
+@NoArgsConstructor
 public class AuthorDto {
 
     private Integer id; // Уникальный идентификатор автора
@@ -22,5 +27,18 @@ public class AuthorDto {
 
     private Long rating; // Рейтинг автора (например, основанный на количестве и качестве комментариев)
 
+    private Long version; // Версия записи (для ETag и оптимистической блокировки)
+
     private List<CommentDto> comments; // Список комментариев, оставленных автором
+
+    /**
+     * Конструктор для проекций JPQL (select new ...): собственные поля автора без комментариев.
+     */
+    public AuthorDto(Integer id, String firstName, String lastName, Long rating, Long version) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.rating = rating;
+        this.version = version;
+    }
 }
@@ -0,0 +1,20 @@
+package org.example.frameworks.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+/**
+ * TODO: Данный класс представляет собой DTO
+ *  с описанием ошибки для одного элемента пакетной операции.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchFailureDto {
+
+    private Integer index; // Позиция элемента во входном списке
+
+    private String message; // Причина, по которой элемент не был обработан
+}
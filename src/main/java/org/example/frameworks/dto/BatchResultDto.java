@@ -0,0 +1,23 @@
+package org.example.frameworks.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+
+/**
+ * TODO: Данный класс представляет собой DTO
+ *  с результатом пакетной операции: идентификаторы созданных записей
+ *  и список элементов, которые не удалось обработать.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResultDto {
+
+    private List<Integer> createdIds; // Идентификаторы созданных записей в порядке запроса
+
+    private List<BatchFailureDto> failures; // Ошибки по отдельным элементам запроса
+}
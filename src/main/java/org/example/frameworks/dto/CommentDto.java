@@ -1,22 +1,30 @@
 package org.example.frameworks.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.LocalDateTime;
+
 
 /**
  * TODO: Данный класс представляет собой DTO
  *  (Data Transfer Object) для передачи данных
  *  о комментарии между слоями приложения.
  *  Он содержит основную информацию о комментарии и его связи с автором.
+ *  Незаполненные поля (частичный ответ по fields=...) не попадают в JSON.
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @NoArgsConstructor
+@AllArgsConstructor
 @Getter
 @Setter
 public class CommentDto {
     private Integer id; // Уникальный идентификатор комментария
     private String text; // Текст комментария
     private Integer authorId; // Идентификатор автора, который оставил комментарий
+    private Long version; // Версия записи (для ETag и оптимистической блокировки)
+    private LocalDateTime creationTime; // Время создания комментария
 }
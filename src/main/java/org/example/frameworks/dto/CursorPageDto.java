@@ -0,0 +1,23 @@
+package org.example.frameworks.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+
+/**
+ * TODO: Данный класс представляет собой DTO
+ *  для передачи одной страницы данных при курсорной (keyset) пагинации.
+ *  Содержит элементы страницы и непрозрачный курсор для запроса следующей страницы.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+
+    private List<T> items; // Элементы текущей страницы
+
+    private String nextCursor; // Курсор следующей страницы (null, если страница последняя)
+}
@@ -0,0 +1,29 @@
+package org.example.frameworks.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+
+/**
+ * TODO: Данный класс представляет собой DTO
+ *  с результатом массовой загрузки CSV: сколько строк загружено и отклонено,
+ *  номера первых отклонённых строк и скорость загрузки.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultDto {
+
+    private long imported; // Количество загруженных (вставленных или обновлённых) строк
+
+    private long rejected; // Количество отклонённых строк
+
+    private List<Long> rejectedLines; // Номера первых отклонённых строк файла (без заголовка)
+
+    private long millis; // Время загрузки
+
+    private long rowsPerSecond; // Скорость загрузки
+}
@@ -4,6 +4,7 @@ package org.example.frameworks.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.List;
 
@@ -24,12 +25,23 @@ public class Author {
     /**
      * Уникальный идентификатор автора в базе данных.
      * Генерируется автоматически при сохранении записи.
+     * Берётся из последовательности author_seq блоками по 50 значений,
+     * что позволяет Hibernate группировать INSERT в пакеты JDBC.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "author_seq")
+    @SequenceGenerator(name = "author_seq", sequenceName = "author_seq", allocationSize = 50)
     @Column(name = "id")
     private Integer id;
 
+    /**
+     * Версия записи для оптимистической блокировки и ETag.
+     * Увеличивается Hibernate при каждом обновлении записи.
+     */
+    @Version
+    @Column(name = "version")
+    private Long version;
+
 
     /**
      * Имя автора.
@@ -56,8 +68,12 @@ public class Author {
     /**
      * Список комментариев, оставленных автором.
      * Создает связь "один ко многим" с сущностью Comment.
-     * При операциях с автором каскадно применяются все операции к комментариям.
+     * Каскадно сохраняются только новые комментарии: удаление комментариев вместе с автором
+     * выполняет база данных по внешнему ключу ON DELETE CASCADE, без загрузки коллекции.
+     * Коллекции нескольких авторов догружаются одним запросом с IN (...),
+     * а не отдельным SELECT на каждого автора.
      */
-    @OneToMany(mappedBy = "author", cascade = CascadeType.ALL)
+    @OneToMany(mappedBy = "author", cascade = CascadeType.PERSIST)
+    @BatchSize(size = 500)
     private List<Comment> comments;
 }
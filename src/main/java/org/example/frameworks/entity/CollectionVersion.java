@@ -0,0 +1,67 @@
+package org.example.frameworks.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.io.Serializable;
+
+
+/**
+ * TODO: Данный класс представляет собой JPA-сущность
+ *  счётчика изменений таблицы целиком (author, comment).
+ *  Счётчик увеличивается в каждой транзакции, записывающей в таблицу
+ *  и служит ETag для коллекций без чтения самой таблицы.
+ *  Счётчик таблицы разбит на несколько строк (полос): транзакция увеличивает одну из них,
+ *  а версия таблицы - сумма всех её полос.
+ */
+@Entity
+@Getter
+@Setter
+@IdClass(CollectionVersion.Key.class)
+@Table(name = "collection_version")
+public class CollectionVersion {
+
+    /**
+     * Имя таблицы, изменения которой считаются.
+     */
+    @Id
+    @Column(name = "name")
+    private String name;
+
+    /**
+     * Номер полосы счётчика.
+     */
+    @Id
+    @ColumnDefault("0")
+    @Column(name = "stripe")
+    private Integer stripe;
+
+    /**
+     * Текущее значение счётчика изменений.
+     */
+    @Column(name = "version")
+    private Long version;
+
+    /**
+     * Составной ключ счётчика (name, stripe).
+     */
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    @Getter
+    public static class Key implements Serializable {
+
+        private String name;
+
+        private Integer stripe;
+    }
+}
@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 import java.time.LocalDateTime;
 
@@ -24,13 +26,24 @@ public class Comment {
     /**
      * Уникальный идентификатор комментария в базе данных.
      * Генерируется автоматически при сохранении записи.
+     * Берётся из последовательности comment_seq блоками по 50 значений,
+     * что позволяет Hibernate группировать INSERT в пакеты JDBC.
      */
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comment_seq")
+    @SequenceGenerator(name = "comment_seq", sequenceName = "comment_seq", allocationSize = 50)
     @Column(name = "id")
     private Integer id;
 
+    /**
+     * Версия записи для оптимистической блокировки и ETag.
+     * Увеличивается Hibernate при каждом обновлении записи.
+     */
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     /**
      * Текст комментария.
      * Сохраняется в колонке text таблицы comment.
@@ -44,8 +57,11 @@ public class Comment {
      * Ссылка на автора, который оставил комментарий.
      * Создает связь "многие к одному" с сущностью Author.
      * Колонка author_id в таблице comment будет содержать id автора.
+     * Автор загружается лениво: для DTO достаточно его id из колонки author_id.
+     * При удалении автора комментарии удаляет база данных (ON DELETE CASCADE).
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     @JoinColumn(name = "author_id")
     private Author author;
 
@@ -53,8 +69,9 @@ public class Comment {
      * Время создания комментария.
      * Автоматически устанавливается при создании записи в базе данных.
      * Сохраняется в колонке creation_time таблицы comment.
+     * Не меняется при обновлении: по нему выбирается секция таблицы.
      */
     @CreationTimestamp
-    @Column(name = "creation_time")
+    @Column(name = "creation_time", updatable = false)
     private LocalDateTime time;
 }
@@ -0,0 +1,71 @@
+package org.example.frameworks.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+
+/**
+ * TODO: Данный класс представляет собой JPA-сущность свёртки активности авторов:
+ *  количество комментариев автора за каждый час. Строки обновляются вместе с созданием
+ *  и удалением комментариев, поэтому статистика не требует GROUP BY по таблице comment.
+ */
+@Entity
+@Getter
+@Setter
+@IdClass(CommentActivity.Key.class)
+@Table(name = "comment_activity")
+public class CommentActivity {
+
+    /**
+     * Идентификатор автора.
+     */
+    @Id
+    @Column(name = "author_id")
+    private Integer authorId;
+
+    /**
+     * Начало часа, за который посчитаны комментарии.
+     */
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    /**
+     * Количество комментариев автора за этот час.
+     */
+    @Column(name = "comment_count", nullable = false)
+    private Long commentCount;
+
+    /**
+     * Составной ключ свёртки (author_id, bucket_start).
+     */
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    @Getter
+    public static class Key implements Serializable {
+
+        /**
+         * Порядок первичного ключа. Счётчики изменяются и блокируются в этом порядке,
+         * поэтому транзакции, затрагивающие одни и те же часы, не блокируют друг друга взаимно.
+         */
+        public static final Comparator<Key> ORDER = Comparator.comparing(Key::getAuthorId)
+                .thenComparing(Key::getBucketStart);
+
+        private Integer authorId;
+
+        private LocalDateTime bucketStart;
+    }
+}
@@ -0,0 +1,293 @@
+package org.example.frameworks.feed;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.frameworks.dto.CommentDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * TODO: Данный класс представляет собой ленту новых комментариев для подписчиков SSE.
+ *  Созданные комментарии кладутся в кольцевой буфер фиксированного размера, запись стоит O(1)
+ *  и не зависит от числа подписчиков: поток создания только будит поток рассылки.
+ *  Поток рассылки будит только подписчиков автора новых комментариев (и подписчиков всех авторов),
+ *  а события в ответы пишет небольшой фиксированный пул потоков app.feed.writers:
+ *  подписчик занимает поток пула, только пока у него есть что отправить.
+ *  Раз в полбуфера будятся все подписчики, чтобы подписчик редкого автора проходил
+ *  чужие события и не получал ложное событие gap. Отставший больше чем на размер буфера
+ *  подписчик пропускает потерянные события и получает событие gap.
+ *  Идентификатор события - "эпоха-номер", по Last-Event-ID переподключение продолжается
+ *  с того же места, пока событие есть в буфере.
+ */
+@Slf4j
+@Component
+public class CommentFeed {
+
+    /**
+     * Эпоха ленты: номера событий после перезапуска начинаются заново.
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicReferenceArray<FeedEvent> ring;
+
+    private final int capacity;
+
+    private final int maxSubscribers;
+
+    private final Duration timeout;
+
+    private final Duration heartbeat;
+
+    private final Set<FeedSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Подписчики комментариев всех авторов.
+     */
+    private final Set<FeedSubscriber> anyAuthor = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Подписчики комментариев одного автора по идентификатору автора.
+     */
+    private final Map<Integer, Set<FeedSubscriber>> byAuthor = new ConcurrentHashMap<>();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Thread dispatcher;
+
+    /**
+     * Потоки записи событий в ответы. Платформенные: SseEmitter.send пишет в сокет внутри synchronized,
+     * и виртуальный поток медленного клиента закрепил бы поток-носитель.
+     */
+    private final ExecutorService writers;
+
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "comment-feed-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Номер последнего опубликованного события (0 - событий ещё не было).
+     */
+    private volatile long head;
+
+    private volatile boolean closed;
+
+    public CommentFeed(@Value("${app.feed.capacity:10000}") int capacity,
+                       @Value("${app.feed.max-subscribers:2000}") int maxSubscribers,
+                       @Value("${app.feed.writers:4}") int writers,
+                       @Value("${app.feed.timeout:30m}") Duration timeout,
+                       @Value("${app.feed.heartbeat:15s}") Duration heartbeat,
+                       MeterRegistry registry) {
+        this.capacity = capacity;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+        this.heartbeat = heartbeat;
+        this.writers = Executors.newFixedThreadPool(writers,
+                Thread.ofPlatform().name("comment-feed-writer-", 0).daemon().stackSize(FeedSubscriber.STACK_SIZE).factory());
+        this.dispatcher = Thread.ofVirtual().name("comment-feed-dispatcher").start(this::dispatch);
+        long interval = heartbeat.toMillis();
+        heartbeats.scheduleWithFixedDelay(this::sendHeartbeats, interval, interval, TimeUnit.MILLISECONDS);
+        Gauge.builder("comment.feed.subscribers", subscribers, Set::size).register(registry);
+        Gauge.builder("comment.feed.skipped", dropped, AtomicLong::get)
+                .description("События, пропущенные отставшими подписчиками")
+                .register(registry);
+    }
+
+    /**
+     * Публикация созданного комментария. Вызывается после фиксации транзакции.
+     *
+     * @param comment созданный комментарий
+     */
+    public void publish(CommentDto comment) {
+        synchronized (ring) {
+            long sequence = head + 1;
+            ring.set(index(sequence), new FeedEvent(sequence, comment));
+            head = sequence;
+        }
+        LockSupport.unpark(dispatcher);
+    }
+
+    /**
+     * Подписка на новые комментарии.
+     *
+     * @param authorId идентификатор автора (null - комментарии всех авторов)
+     * @param lastEventId Last-Event-ID переподключающегося клиента (null - только новые события)
+     * @return SSE-ответ, который дописывают потоки пула записи
+     * @throws ResponseStatusException 503, если подписчиков уже максимальное количество
+     */
+    public SseEmitter subscribe(Integer authorId, String lastEventId) {
+        if (closed || subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many feed subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        FeedSubscriber subscriber = new FeedSubscriber(this, emitter, authorId, resumePosition(lastEventId));
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        start(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Регистрация подписчика для пробуждения после публикаций и отправка ему событий,
+     * накопившихся с его позиции.
+     */
+    void start(FeedSubscriber subscriber) {
+        subscribers.add(subscriber);
+        if (subscriber.authorId() == null) {
+            anyAuthor.add(subscriber);
+        } else {
+            byAuthor.compute(subscriber.authorId(), (id, authorSubscribers) -> {
+                Set<FeedSubscriber> result = authorSubscribers != null ? authorSubscribers : ConcurrentHashMap.newKeySet();
+                result.add(subscriber);
+                return result;
+            });
+        }
+        subscriber.wakeUp();
+    }
+
+    /**
+     * Позиция, с которой подписчик начинает читать буфер.
+     * Last-Event-ID из прошлой эпохи означает перезапуск: все события в буфере для клиента новые.
+     */
+    long resumePosition(String lastEventId) {
+        long current = head;
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return current;
+        }
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return oldest(current) - 1;
+        }
+        try {
+            long sequence = Long.parseLong(lastEventId.substring(separator + 1));
+            return Math.max(0, Math.min(sequence, current));
+        } catch (NumberFormatException e) {
+            return current;
+        }
+    }
+
+    /**
+     * Поток рассылки: после публикаций будит подписчиков авторов новых событий.
+     * Публикации, пришедшие за время обхода, объединяются в один следующий обход.
+     * Если с прошлого пробуждения всех подписчиков прошло полбуфера событий
+     * или рассылка отстала на весь буфер, будятся все.
+     */
+    private void dispatch() {
+        long dispatched = 0;
+        long sweep = 0;
+        while (!closed) {
+            LockSupport.park(this);
+            long current = head;
+            if (current - sweep >= Math.max(1, capacity / 2) || current - dispatched > capacity) {
+                subscribers.forEach(FeedSubscriber::wakeUp);
+                sweep = current;
+            } else if (current > dispatched) {
+                anyAuthor.forEach(FeedSubscriber::wakeUp);
+                for (long sequence = dispatched + 1; sequence <= current; sequence++) {
+                    FeedEvent event = get(sequence);
+                    Set<FeedSubscriber> authorSubscribers = event != null && event.comment().getAuthorId() != null
+                            ? byAuthor.get(event.comment().getAuthorId()) : null;
+                    if (authorSubscribers != null) {
+                        authorSubscribers.forEach(FeedSubscriber::wakeUp);
+                    }
+                }
+            }
+            dispatched = current;
+        }
+    }
+
+    /**
+     * Раз в heartbeat подписчики, которым давно ничего не отправлялось, получают комментарий SSE,
+     * чтобы обнаружить закрытое соединение.
+     */
+    private void sendHeartbeats() {
+        long idleSince = System.nanoTime() - heartbeat.toNanos();
+        for (FeedSubscriber subscriber : subscribers) {
+            subscriber.heartbeatIfIdleSince(idleSince);
+        }
+    }
+
+    /**
+     * Отправка событий подписчика в потоке пула записи.
+     */
+    void execute(Runnable task) {
+        writers.execute(task);
+    }
+
+    /**
+     * Событие с номером sequence или null, если оно уже перезаписано в буфере.
+     */
+    FeedEvent get(long sequence) {
+        FeedEvent event = ring.get(index(sequence));
+        return event != null && event.sequence() == sequence ? event : null;
+    }
+
+    long head() {
+        return head;
+    }
+
+    long oldest(long current) {
+        return Math.max(1, current - capacity + 1);
+    }
+
+    String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void skipped(long count) {
+        dropped.addAndGet(count);
+    }
+
+    void unsubscribe(FeedSubscriber subscriber) {
+        subscribers.remove(subscriber);
+        if (subscriber.authorId() == null) {
+            anyAuthor.remove(subscriber);
+        } else {
+            byAuthor.computeIfPresent(subscriber.authorId(), (id, authorSubscribers) -> {
+                authorSubscribers.remove(subscriber);
+                return authorSubscribers.isEmpty() ? null : authorSubscribers;
+            });
+        }
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        LockSupport.unpark(dispatcher);
+        heartbeats.shutdownNow();
+        subscribers.forEach(FeedSubscriber::complete);
+        writers.shutdown();
+    }
+
+    record FeedEvent(long sequence, CommentDto comment) {
+    }
+}
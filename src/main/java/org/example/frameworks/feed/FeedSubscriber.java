@@ -0,0 +1,171 @@
+package org.example.frameworks.feed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.frameworks.dto.CommentDto;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * TODO: Подписчик ленты комментариев: читает кольцевой буфер со своей позиции
+ *  и пишет события в SSE-ответ. Своего потока у подписчика нет: после пробуждения
+ *  он ставит себя в очередь пула записи CommentFeed и выполняется в одном потоке пула за раз.
+ *  За один заход отправляется не больше DRAIN_LIMIT событий, остаток - в следующем заходе
+ *  из конца очереди, поэтому подписчик с большим отставанием не задерживает остальных.
+ *  Если подписчику давно ничего не отправлялось, CommentFeed просит отправить комментарий SSE,
+ *  чтобы обнаружить закрытое соединение.
+ */
+@Slf4j
+class FeedSubscriber {
+
+    /**
+     * Стек потока пула записи: ему нужны только чтение буфера и запись в ответ.
+     */
+    static final long STACK_SIZE = 256 * 1024;
+
+    /**
+     * Сколько событий буфера подписчик проходит за один заход в поток пула.
+     */
+    private static final int DRAIN_LIMIT = 256;
+
+    private final CommentFeed feed;
+
+    private final SseEmitter emitter;
+
+    private final Integer authorId;
+
+    /**
+     * Заход уже в очереди пула или выполняется: второй не ставится.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Номер последнего обработанного события. Меняется только в заходе,
+     * заходы одного подписчика не пересекаются.
+     */
+    private long position;
+
+    private volatile long lastSent = System.nanoTime();
+
+    private volatile boolean heartbeatDue;
+
+    private volatile boolean closed;
+
+    FeedSubscriber(CommentFeed feed, SseEmitter emitter, Integer authorId, long position) {
+        this.feed = feed;
+        this.emitter = emitter;
+        this.authorId = authorId;
+        this.position = position;
+    }
+
+    Integer authorId() {
+        return authorId;
+    }
+
+    /**
+     * Постановка захода в очередь пула записи, если он ещё не стоит там.
+     */
+    void wakeUp() {
+        if (!closed && scheduled.compareAndSet(false, true)) {
+            try {
+                feed.execute(this::drain);
+            } catch (RuntimeException e) {
+                // Пул остановлен вместе с лентой
+                scheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Запрос комментария SSE, если с момента idleSince подписчику ничего не отправлялось.
+     */
+    void heartbeatIfIdleSince(long idleSince) {
+        if (lastSent - idleSince <= 0) {
+            heartbeatDue = true;
+            wakeUp();
+        }
+    }
+
+    void close() {
+        closed = true;
+        feed.unsubscribe(this);
+    }
+
+    void complete() {
+        close();
+        emitter.complete();
+    }
+
+    private void drain() {
+        try {
+            int handled = 0;
+            while (!closed && !feed.isClosed() && position < feed.head() && handled < DRAIN_LIMIT) {
+                long head = feed.head();
+                long oldest = feed.oldest(head);
+                if (position + 1 < oldest) {
+                    skipTo(oldest - 1);
+                }
+                CommentFeed.FeedEvent event = feed.get(position + 1);
+                if (event == null) {
+                    // Событие перезаписали, пока подписчик его читал
+                    skipTo(feed.oldest(feed.head()) - 1);
+                    continue;
+                }
+                position = event.sequence();
+                handled++;
+                if (accepts(event.comment())) {
+                    emitter.send(SseEmitter.event()
+                            .id(feed.eventId(position))
+                            .name("comment")
+                            .data(event.comment(), MediaType.APPLICATION_JSON));
+                    sent();
+                }
+            }
+            if (heartbeatDue && !closed) {
+                heartbeatDue = false;
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+                sent();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Клиент отключился: ответ уже закрыт
+            log.debug("Feed subscriber disconnected: {}", e.getMessage());
+            close();
+        } finally {
+            scheduled.set(false);
+        }
+        // События, опубликованные во время захода или не вошедшие в DRAIN_LIMIT
+        if (position < feed.head()) {
+            wakeUp();
+        }
+    }
+
+    private void sent() {
+        lastSent = System.nanoTime();
+        heartbeatDue = false;
+    }
+
+    /**
+     * true, если комментарий нужен подписчику (подписка на всех авторов или на автора комментария).
+     */
+    boolean accepts(CommentDto comment) {
+        return authorId == null || authorId.equals(comment.getAuthorId());
+    }
+
+    /**
+     * Отставший подписчик пропускает перезаписанные события и узнаёт, сколько их было.
+     */
+    private void skipTo(long newPosition) throws IOException {
+        long skipped = newPosition - position;
+        position = newPosition;
+        feed.skipped(skipped);
+        emitter.send(SseEmitter.event()
+                .id(feed.eventId(position))
+                .name("gap")
+                .data(Map.of("skipped", skipped), MediaType.APPLICATION_JSON));
+        sent();
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.frameworks.limits;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * TODO: Данный класс представляет собой адаптивный ограничитель числа одновременных запросов (AIMD).
+ *  Пока запросы укладываются в порог задержки, предел растёт на единицу (аддитивное увеличение),
+ *  но только если он действительно используется. Медленный или неудачный запрос уменьшает предел
+ *  в backoffRatio раз (мультипликативное уменьшение), но не чаще раза за время одного запроса:
+ *  запросы, начатые до последнего уменьшения, предел больше не снижают. Запрос сверх предела
+ *  не ждёт в очереди, а сразу отклоняется.
+ */
+public class AdaptiveLimiter {
+
+    private final String name;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long latencyThresholdNanos;
+
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile double limit;
+
+    private long lastDecreaseNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+
+    /**
+     * @param name имя группы запросов (для метрик и логов)
+     * @param initialLimit предел при старте
+     * @param minLimit нижняя граница предела
+     * @param maxLimit верхняя граница предела
+     * @param latencyThreshold задержка, выше которой запрос считается признаком перегрузки
+     * @param backoffRatio множитель уменьшения предела при перегрузке (0..1)
+     */
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                           Duration latencyThreshold, double backoffRatio) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Попытка занять место под запрос.
+     *
+     * @return true, если запрос можно выполнять; false - предел исчерпан, запрос нужно отклонить
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Освобождение места и учёт результата запроса.
+     *
+     * @param latencyNanos время выполнения запроса
+     * @param failed true, если запрос завершился ошибкой сервера (тоже признак перегрузки)
+     */
+    public void release(long latencyNanos, boolean failed) {
+        int current = inFlight.getAndDecrement();
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                if (now - latencyNanos - lastDecreaseNanos > 0) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = now;
+                }
+            } else if (current * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    /**
+     * Освобождение места без учёта задержки (например, для долгих асинхронных ответов).
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+}
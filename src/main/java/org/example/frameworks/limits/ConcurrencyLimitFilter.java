@@ -0,0 +1,71 @@
+package org.example.frameworks.limits;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+
+/**
+ * TODO: Данный класс представляет собой фильтр, который пропускает запросы к /author и /comment
+ *  через адаптивные ограничители: отдельно записи (POST, PUT, PATCH, DELETE) и чтения.
+ *  Запрос сверх предела сразу получает 503 с заголовком Retry-After и не занимает
+ *  поток Tomcat и соединение Hikari в ожидании.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final AdaptiveLimiter reads;
+
+    private final AdaptiveLimiter writes;
+
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(AdaptiveLimiter reads, AdaptiveLimiter writes, long retryAfterSeconds) {
+        this.reads = reads;
+        this.writes = writes;
+        this.retryAfterSeconds = Long.toString(retryAfterSeconds);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        // Массовая загрузка CSV длится секунды и исказила бы задержки, по которым подбирается лимит
+        return !(path.startsWith("/author") || path.startsWith("/comment")) || path.endsWith("/import");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AdaptiveLimiter limiter = isWrite(request.getMethod()) ? writes : reads;
+        if (!limiter.tryAcquire()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent " + limiter.getName());
+            return;
+        }
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Потоковые выгрузки: время ответа не говорит о перегрузке
+                limiter.release();
+            } else {
+                limiter.release(System.nanoTime() - started, failed);
+            }
+        }
+    }
+
+    private static boolean isWrite(String method) {
+        return switch (method) {
+            case "POST", "PUT", "PATCH", "DELETE" -> true;
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.frameworks.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * TODO: Данный класс представляет собой аспект, который измеряет время каждой публичной операции
+ *  сервисов CRUDService (AuthorCRUDService, CommentCRUDService) таймером crud.operation
+ *  с гистограммой для перцентилей. Теги: service, operation, outcome (success/error).
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class CrudMetricsAspect {
+
+    public static final String TIMER = "crud.operation";
+
+    private final MeterRegistry registry;
+
+    @Around("within(org.example.frameworks.services.CRUDService+) && execution(public * *(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(TIMER)
+                    .tag("service", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("operation", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.frameworks.metrics;
+
+
+/**
+ * TODO: Данный класс представляет собой счётчики SQL-запросов текущего HTTP-запроса.
+ *  Заполняются SqlStatementListener в потоке запроса, открываются и читаются SqlMetricsFilter.
+ */
+public final class RequestSqlStats {
+
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+
+    private long nanos;
+
+    private long startedAt;
+
+    private RequestSqlStats() {
+    }
+
+    static RequestSqlStats begin() {
+        RequestSqlStats stats = new RequestSqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Счётчики текущего запроса (null - поток не обслуживает HTTP-запрос).
+     */
+    static RequestSqlStats current() {
+        return CURRENT.get();
+    }
+
+    void statementStarted() {
+        startedAt = System.nanoTime();
+    }
+
+    void statementFinished() {
+        statements++;
+        if (startedAt != 0) {
+            nanos += System.nanoTime() - startedAt;
+            startedAt = 0;
+        }
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+}
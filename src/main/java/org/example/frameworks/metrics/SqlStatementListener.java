@@ -0,0 +1,38 @@
+package org.example.frameworks.metrics;
+
+import org.hibernate.SessionEventListener;
+
+
+/**
+ * TODO: Данный класс представляет собой слушатель событий сессии Hibernate,
+ *  который считает выполненные JDBC-запросы и пакеты и время их выполнения для текущего HTTP-запроса.
+ *  Подключается свойством hibernate.session.events.auto, экземпляр создаётся Hibernate на каждую сессию.
+ */
+public class SqlStatementListener implements SessionEventListener {
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.statementStarted();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.statementFinished();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        jdbcExecuteStatementStart();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        jdbcExecuteStatementEnd();
+    }
+}
@@ -1,7 +1,89 @@
 package org.example.frameworks.repository;
 
+import jakarta.persistence.QueryHint;
+import org.example.frameworks.dto.AuthorDto;
 import org.example.frameworks.entity.Author;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface AuthorRepository extends JpaRepository<Author, Integer> {
+
+    /**
+     * Keyset-страница авторов: id > :after ORDER BY id LIMIT :limit.
+     * Стоимость запроса не зависит от того, насколько далеко клиент пролистал таблицу.
+     * Строки проецируются сразу в DTO, без управляемых сущностей в контексте персистентности.
+     */
+    @Query("select new org.example.frameworks.dto.AuthorDto(a.id, a.firstName, a.lastName, a.rating, a.version) "
+            + "from Author a where a.id > :after order by a.id")
+    List<AuthorDto> findDtoPage(@Param("after") Integer after, Pageable limit);
+
+    /**
+     * Автор в виде DTO (без комментариев) без загрузки сущности.
+     */
+    @Query("select new org.example.frameworks.dto.AuthorDto(a.id, a.firstName, a.lastName, a.rating, a.version) "
+            + "from Author a where a.id = :id")
+    Optional<AuthorDto> findDtoById(@Param("id") Integer id);
+
+    /**
+     * Авторы по списку идентификаторов в виде DTO (без комментариев), упорядоченные по id.
+     */
+    @Query("select new org.example.frameworks.dto.AuthorDto(a.id, a.firstName, a.lastName, a.rating, a.version) "
+            + "from Author a where a.id in :ids order by a.id")
+    List<AuthorDto> findDtosByIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Лучшие авторы по рейтингу (по убыванию rating, затем по id) в виде DTO без комментариев.
+     * Выполняется по индексу idx_author_rating без сортировки всей таблицы.
+     */
+    @Query("select new org.example.frameworks.dto.AuthorDto(a.id, a.firstName, a.lastName, a.rating, a.version) "
+            + "from Author a where a.rating is not null order by a.rating desc, a.id")
+    List<AuthorDto> findTopByRating(Pageable limit);
+
+    /**
+     * Все авторы в виде DTO (без комментариев) без загрузки сущностей.
+     */
+    @Query("select new org.example.frameworks.dto.AuthorDto(a.id, a.firstName, a.lastName, a.rating, a.version) "
+            + "from Author a order by a.id")
+    List<AuthorDto> findAllDtos();
+
+    /**
+     * Проверка существования сразу нескольких авторов одним запросом с IN (...).
+     *
+     * @return идентификаторы авторов, которые есть в базе данных
+     */
+    @Query("select a.id from Author a where a.id in :ids")
+    Set<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Удаление авторов одним запросом DELETE ... WHERE id IN (...) без загрузки сущностей.
+     * Комментарии удаляются базой данных по внешнему ключу ON DELETE CASCADE.
+     *
+     * @return количество удалённых авторов
+     */
+    @Modifying
+    @Query("delete from Author a where a.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Потоковое чтение всех авторов через курсор JDBC.
+     * Строки подтягиваются порциями по fetch size, а не всей таблицей сразу.
+     * Поток нужно закрыть и читать внутри транзакции.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select a from Author a order by a.id")
+    Stream<Author> streamAll();
 }
@@ -0,0 +1,30 @@
+package org.example.frameworks.repository;
+
+import org.example.frameworks.entity.CollectionVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface CollectionVersionRepository extends JpaRepository<CollectionVersion, CollectionVersion.Key> {
+
+    /**
+     * Версия таблицы - сумма всех полос её счётчика.
+     */
+    @Query("select sum(v.version) from CollectionVersion v where v.name = :name")
+    Optional<Long> findVersion(@Param("name") String name);
+
+    /**
+     * Увеличение одной полосы счётчика в текущей транзакции (без неё - в отдельной).
+     * CollectionVersions вызывает его перед фиксацией, чтобы блокировка строки была короткой.
+     *
+     * @return количество изменённых строк (0, если такой полосы нет)
+     */
+    @Transactional
+    @Modifying
+    @Query("update CollectionVersion v set v.version = v.version + 1 where v.name = :name and v.stripe = :stripe")
+    int increment(@Param("name") String name, @Param("stripe") int stripe);
+}
@@ -0,0 +1,165 @@
+package org.example.frameworks.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.frameworks.dto.ActivityBucketDto;
+import org.example.frameworks.entity.CommentActivity;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * TODO: Данный класс представляет собой доступ к свёртке comment_activity через JDBC.
+ *  Изменения счётчиков пишутся пакетом upsert-запросов: на PostgreSQL -
+ *  INSERT ... ON CONFLICT DO UPDATE, на остальных базах (H2 в тестах) - стандартный MERGE.
+ *  Удалённые одним запросом комментарии считаются тем же запросом: на PostgreSQL -
+ *  DELETE ... RETURNING в CTE, на H2 - выборка из OLD TABLE (DELETE ...).
+ */
+@Repository
+public class CommentActivityRepository {
+
+    private static final String UPSERT_POSTGRESQL = """
+            insert into comment_activity (author_id, bucket_start, comment_count) values (?, ?, ?)
+            on conflict (author_id, bucket_start)
+            do update set comment_count = comment_activity.comment_count + excluded.comment_count""";
+
+    private static final String UPSERT_MERGE = """
+            merge into comment_activity a
+            using (values (cast(? as integer), cast(? as timestamp), cast(? as bigint))) d (author_id, bucket_start, delta)
+            on a.author_id = d.author_id and a.bucket_start = d.bucket_start
+            when matched then update set comment_count = a.comment_count + d.delta
+            when not matched then insert (author_id, bucket_start, comment_count) values (d.author_id, d.bucket_start, d.delta)""";
+
+    private static final String DELETE_POSTGRESQL = """
+            with deleted as (delete from comment where %s returning author_id, creation_time)
+            select author_id, date_trunc('hour', creation_time), count(*) from deleted
+            group by author_id, date_trunc('hour', creation_time)""";
+
+    private static final String DELETE_OLD_TABLE = """
+            select author_id, date_trunc('hour', creation_time), count(*) from old table (delete from comment where %s)
+            group by author_id, date_trunc('hour', creation_time)""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String upsertSql;
+
+    private final String deleteSql;
+
+    public CommentActivityRepository(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        boolean postgresql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+        this.upsertSql = postgresql ? UPSERT_POSTGRESQL : UPSERT_MERGE;
+        this.deleteSql = postgresql ? DELETE_POSTGRESQL : DELETE_OLD_TABLE;
+    }
+
+    /**
+     * Прибавление изменений к счётчикам одним пакетом JDBC в порядке первичного ключа.
+     *
+     * @param deltas изменение количества комментариев по (автор, начало часа)
+     */
+    public void add(Map<CommentActivity.Key, Long> deltas) {
+        List<Object[]> batch = new ArrayList<>(deltas.size());
+        deltas.entrySet().stream()
+                .filter(delta -> delta.getValue() != 0)
+                .sorted(Map.Entry.comparingByKey(CommentActivity.Key.ORDER))
+                .forEach(delta -> batch.add(new Object[]{delta.getKey().getAuthorId(),
+                        Timestamp.valueOf(delta.getKey().getBucketStart()), delta.getValue()}));
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(upsertSql, batch);
+        }
+    }
+
+    /**
+     * Удаление комментариев автора и/или за интервал [from, to) одним запросом DELETE ... WHERE
+     * по индексу idx_comment_author_time или idx_comment_time.
+     * Счётчики строятся по тем же строкам, которые удалил запрос, поэтому комментарии,
+     * зафиксированные параллельно, не искажают их.
+     *
+     * @param authorId идентификатор автора (null - все авторы)
+     * @param from начало интервала времени создания
+     * @param to конец интервала, не включая
+     * @return количество удалённых комментариев по (автор, начало часа)
+     */
+    public Map<CommentActivity.Key, Long> deleteComments(Integer authorId, LocalDateTime from, LocalDateTime to) {
+        String where = "creation_time >= ? and creation_time < ?" + (authorId != null ? " and author_id = ?" : "");
+        Object[] args = authorId != null
+                ? new Object[]{Timestamp.valueOf(from), Timestamp.valueOf(to), authorId}
+                : new Object[]{Timestamp.valueOf(from), Timestamp.valueOf(to)};
+        return query(deleteSql.formatted(where), args);
+    }
+
+    /**
+     * Количество комментариев по (автор, час) в таблице comment - для сверки.
+     * Выполняется по индексу idx_comment_time, для одного автора - по idx_comment_author_time.
+     *
+     * @param authorId идентификатор автора (null - все авторы)
+     * @param from начало интервала времени создания
+     * @param to конец интервала, не включая
+     */
+    public Map<CommentActivity.Key, Long> countComments(Integer authorId, LocalDateTime from, LocalDateTime to) {
+        String sql = "select author_id, date_trunc('hour', creation_time) as bucket_start, count(*) as comment_count "
+                + "from comment where creation_time >= ? and creation_time < ?"
+                + (authorId != null ? " and author_id = ?" : " and author_id is not null")
+                + " group by author_id, date_trunc('hour', creation_time)";
+        Object[] args = authorId != null
+                ? new Object[]{Timestamp.valueOf(from), Timestamp.valueOf(to), authorId}
+                : new Object[]{Timestamp.valueOf(from), Timestamp.valueOf(to)};
+        return query(sql, args);
+    }
+
+    /**
+     * Сохранённые счётчики всех авторов начиная с часа since (для сверки).
+     */
+    public Map<CommentActivity.Key, Long> findCounts(LocalDateTime since) {
+        return query("select author_id, bucket_start, comment_count from comment_activity where bucket_start >= ?",
+                new Object[]{Timestamp.valueOf(since)});
+    }
+
+    /**
+     * Сохранённый счётчик одного часа автора с блокировкой строки до конца транзакции (для сверки).
+     *
+     * @return значение счётчика, 0 - если строки нет
+     */
+    public long lockCount(CommentActivity.Key key) {
+        return jdbcTemplate.query("select comment_count from comment_activity "
+                        + "where author_id = ? and bucket_start = ? for update",
+                rs -> rs.next() ? rs.getLong(1) : 0L, key.getAuthorId(), Timestamp.valueOf(key.getBucketStart()));
+    }
+
+    /**
+     * Удаление обнулившихся счётчиков начиная с часа since.
+     */
+    public int deleteEmpty(LocalDateTime since) {
+        return jdbcTemplate.update("delete from comment_activity where comment_count = 0 and bucket_start >= ?",
+                Timestamp.valueOf(since));
+    }
+
+    /**
+     * Почасовые счётчики автора за интервал [from, to) по первичному ключу.
+     * Время ответа зависит от длины интервала, а не от количества комментариев.
+     */
+    public List<ActivityBucketDto> findBuckets(Integer authorId, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query("select bucket_start, comment_count from comment_activity "
+                        + "where author_id = ? and bucket_start >= ? and bucket_start < ? and comment_count <> 0 "
+                        + "order by bucket_start",
+                (rs, rowNum) -> new ActivityBucketDto(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2)),
+                authorId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    private Map<CommentActivity.Key, Long> query(String sql, Object[] args) {
+        Map<CommentActivity.Key, Long> counts = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            counts.put(new CommentActivity.Key(rs.getInt(1), rs.getTimestamp(2).toLocalDateTime()), rs.getLong(3));
+        }, args);
+        return counts;
+    }
+}
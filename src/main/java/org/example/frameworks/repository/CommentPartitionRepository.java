@@ -0,0 +1,132 @@
+package org.example.frameworks.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * TODO: Данный класс представляет собой доступ к помесячным секциям таблицы comment через JDBC.
+ *  Секция месяца называется comment_pГГГГ_ММ и содержит строки с creation_time
+ *  в интервале [начало месяца, начало следующего месяца). Секционирование есть только
+ *  на PostgreSQL (changeSet partitionCommentByMonth), на остальных базах таблица обычная.
+ */
+@Repository
+public class CommentPartitionRepository {
+
+    private static final String PREFIX = "comment_p";
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final boolean postgresql;
+
+    public CommentPartitionRepository(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postgresql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+
+    /**
+     * Имя секции месяца.
+     */
+    public static String partitionName(YearMonth month) {
+        return PREFIX + month.format(SUFFIX);
+    }
+
+    /**
+     * Месяц секции по её имени (пусто для comment_default и посторонних таблиц).
+     */
+    public static Optional<YearMonth> monthOf(String partitionName) {
+        if (!partitionName.startsWith(PREFIX)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(YearMonth.parse(partitionName.substring(PREFIX.length()), SUFFIX));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * true, если таблица comment секционирована.
+     */
+    public boolean isPartitioned() {
+        return postgresql && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "select exists (select 1 from pg_partitioned_table where partrelid = to_regclass('comment'))",
+                Boolean.class));
+    }
+
+    /**
+     * Имена присоединённых секций таблицы comment.
+     */
+    public List<String> findPartitions() {
+        return jdbcTemplate.queryForList("select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid "
+                + "where i.inhparent = to_regclass('comment') order by c.relname", String.class);
+    }
+
+    /**
+     * Ограничение ожидания блокировки таблицы comment до конца текущей транзакции,
+     * чтобы изменение секций не выстраивало за собой очередь запросов.
+     */
+    public void setLockTimeout(Duration timeout) {
+        jdbcTemplate.execute("set local lock_timeout = " + timeout.toMillis());
+    }
+
+    /**
+     * Количество строк в comment_default. Туда попадают комментарии месяцев без секции,
+     * в нормальном состоянии таблица пуста.
+     */
+    public long countDefaultRows() {
+        return jdbcTemplate.queryForObject("select count(*) from comment_default", Long.class);
+    }
+
+    /**
+     * Месяцы строк, попавших в comment_default.
+     */
+    public List<YearMonth> findDefaultMonths() {
+        return jdbcTemplate.queryForList("select distinct to_char(creation_time, 'YYYY_MM') from comment_default",
+                String.class).stream().map(month -> YearMonth.parse(month, SUFFIX)).sorted().toList();
+    }
+
+    /**
+     * Создание секции месяца. Строки этого месяца, уже попавшие в comment_default, переносятся в новую секцию:
+     * CREATE TABLE ... PARTITION OF на них завершился бы ошибкой. Секция наполняется отдельной таблицей
+     * с ограничением CHECK на интервал и присоединяется к comment, поэтому её строки повторно не проверяются.
+     */
+    public void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        String from = "'" + month.atDay(1) + "'";
+        String to = "'" + month.plusMonths(1).atDay(1) + "'";
+        jdbcTemplate.execute("create table " + name + " (like comment including defaults)");
+        jdbcTemplate.execute("alter table " + name + " add constraint " + name + "_range check (creation_time >= "
+                + from + " and creation_time < " + to + ")");
+        jdbcTemplate.execute("with moved as (delete from comment_default where creation_time >= " + from
+                + " and creation_time < " + to + " returning *) insert into " + name + " select * from moved");
+        jdbcTemplate.execute("alter table comment attach partition " + name + " for values from (" + from + ") to (" + to + ")");
+        jdbcTemplate.execute("alter table " + name + " drop constraint " + name + "_range");
+    }
+
+    /**
+     * Отсоединение секции: строки остаются в отдельной таблице с тем же именем (для архивации).
+     */
+    public void detachPartition(String partitionName) {
+        jdbcTemplate.execute("alter table comment detach partition " + partitionName);
+    }
+
+    /**
+     * Удаление секции вместе со строками без построчного DELETE.
+     */
+    public void dropPartition(String partitionName) {
+        jdbcTemplate.execute("drop table " + partitionName);
+    }
+}
@@ -1,9 +1,126 @@
 package org.example.frameworks.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.example.frameworks.dto.CommentDto;
 import org.example.frameworks.entity.Comment;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
+
+    /**
+     * Keyset-страница комментариев: id > :after ORDER BY id LIMIT :limit.
+     * Стоимость запроса не зависит от того, насколько далеко клиент пролистал таблицу.
+     * Строки проецируются сразу в DTO, authorId читается из колонки author_id без обращения к автору.
+     */
+    @Query("select new org.example.frameworks.dto.CommentDto(c.id, c.text, c.author.id, c.version, c.time) "
+            + "from Comment c where c.id > :after order by c.id")
+    List<CommentDto> findDtoPage(@Param("after") Integer after, Pageable limit);
+
+    /**
+     * Keyset-страница комментариев автора за интервал времени, упорядоченная по (creation_time, id).
+     * Сравнение строк (creation_time, id) > (:afterTime, :afterId) и условие по author_id
+     * выполняются по индексу idx_comment_author_time без сортировки и без OFFSET.
+     * Избыточное условие c.time >= :afterTime нужно для отсечения секций:
+     * PostgreSQL не отсекает секции по сравнению строк.
+     */
+    @Query("select new org.example.frameworks.dto.CommentDto(c.id, c.text, c.author.id, c.version, c.time) "
+            + "from Comment c where c.author.id = :authorId "
+            + "and (c.time, c.id) > (:afterTime, :afterId) and c.time >= :afterTime and c.time < :to "
+            + "order by c.time, c.id")
+    List<CommentDto> findDtoPageByAuthorAndTime(@Param("authorId") Integer authorId,
+                                                @Param("afterTime") LocalDateTime afterTime,
+                                                @Param("afterId") Integer afterId,
+                                                @Param("to") LocalDateTime to,
+                                                Pageable limit);
+
+    /**
+     * Keyset-страница всех комментариев за интервал времени, упорядоченная по (creation_time, id).
+     * Выполняется по индексу idx_comment_time без сортировки и без OFFSET,
+     * читаются только секции месяцев интервала.
+     */
+    @Query("select new org.example.frameworks.dto.CommentDto(c.id, c.text, c.author.id, c.version, c.time) "
+            + "from Comment c where (c.time, c.id) > (:afterTime, :afterId) and c.time >= :afterTime and c.time < :to "
+            + "order by c.time, c.id")
+    List<CommentDto> findDtoPageByTime(@Param("afterTime") LocalDateTime afterTime,
+                                       @Param("afterId") Integer afterId,
+                                       @Param("to") LocalDateTime to,
+                                       Pageable limit);
+
+    /**
+     * Комментарий в виде DTO без загрузки сущности.
+     */
+    @Query("select new org.example.frameworks.dto.CommentDto(c.id, c.text, c.author.id, c.version, c.time) "
+            + "from Comment c where c.id = :id")
+    Optional<CommentDto> findDtoById(@Param("id") Integer id);
+
+    /**
+     * Комментарий в виде DTO с блокировкой строки до конца транзакции (SELECT ... FOR UPDATE):
+     * до фиксации прочитанное состояние не изменит никто другой.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new org.example.frameworks.dto.CommentDto(c.id, c.text, c.author.id, c.version, c.time) "
+            + "from Comment c where c.id = :id")
+    Optional<CommentDto> findDtoByIdForUpdate(@Param("id") Integer id);
+
+    /**
+     * Все комментарии в виде DTO без загрузки сущностей.
+     */
+    @Query("select new org.example.frameworks.dto.CommentDto(c.id, c.text, c.author.id, c.version, c.time) "
+            + "from Comment c order by c.id")
+    List<CommentDto> findAllDtos();
+
+    /**
+     * Комментарии нескольких авторов одним запросом с IN (...), в виде DTO.
+     */
+    @Query("select new org.example.frameworks.dto.CommentDto(c.id, c.text, c.author.id, c.version, c.time) "
+            + "from Comment c where c.author.id in :authorIds order by c.id")
+    List<CommentDto> findDtosByAuthorIds(@Param("authorIds") Collection<Integer> authorIds);
+
+    /**
+     * Комментарии по списку идентификаторов в виде DTO (для результатов поиска).
+     */
+    @Query("select new org.example.frameworks.dto.CommentDto(c.id, c.text, c.author.id, c.version, c.time) "
+            + "from Comment c where c.id in :ids")
+    List<CommentDto> findDtosByIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Идентификатор автора комментария без загрузки самого комментария и автора.
+     */
+    @Query("select c.author.id from Comment c where c.id = :id")
+    Optional<Integer> findAuthorIdById(@Param("id") Integer id);
+
+    /**
+     * Версия комментария без загрузки самого комментария (для проверки ETag).
+     */
+    @Query("select c.version from Comment c where c.id = :id")
+    Optional<Long> findVersionById(@Param("id") Integer id);
+
+    /**
+     * Потоковое чтение всех комментариев сразу в DTO через курсор JDBC (для выгрузки NDJSON
+     * и построения поискового индекса). Строки подтягиваются порциями по fetch size,
+     * в контексте персистентности не остаётся ни комментариев, ни прокси авторов.
+     * Поток нужно закрыть и читать внутри транзакции.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new org.example.frameworks.dto.CommentDto(c.id, c.text, c.author.id, c.version, c.time) "
+            + "from Comment c order by c.id")
+    Stream<CommentDto> streamAllDtos();
 }
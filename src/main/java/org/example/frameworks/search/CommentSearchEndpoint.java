@@ -0,0 +1,26 @@
+package org.example.frameworks.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+
+/**
+ * TODO: Данный класс представляет собой actuator-эндпоинт /actuator/commentsearch,
+ *  который показывает размер полнотекстового индекса комментариев и оценку занимаемой им памяти.
+ */
+@Component
+@Endpoint(id = "commentsearch")
+@RequiredArgsConstructor
+public class CommentSearchEndpoint {
+
+    private final CommentSearchIndex index;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return index.stats();
+    }
+}
@@ -0,0 +1,235 @@
+package org.example.frameworks.search;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.frameworks.config.PrimaryReads;
+import org.example.frameworks.dto.CommentDto;
+import org.example.frameworks.repository.CommentRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+
+/**
+ * TODO: Данный класс представляет собой полнотекстовый индекс по тексту комментариев в памяти.
+ *  Индекс строится из таблицы comment после старта приложения в фоновом потоке
+ *  и обновляется при создании, изменении и удалении комментариев.
+ *  Полные перестроения (после старта, массовой загрузки, удаления секций) выполняются
+ *  по одному в единственном фоновом потоке, повторные запросы объединяются.
+ *  Изменения, пришедшие во время построения, запоминаются и применяются к новому индексу.
+ */
+@Slf4j
+@Component
+public class CommentSearchIndex {
+
+    private final CommentRepository commentRepository;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private InvertedIndex index = new InvertedIndex();
+
+    /**
+     * Изменения, пришедшие во время построения индекса (null - индекс не строится).
+     */
+    private List<Consumer<InvertedIndex>> pending;
+
+    private volatile boolean ready;
+
+    private volatile long buildMillis;
+
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "comment-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Перестроение запрошено, но ещё не началось.
+     */
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    public CommentSearchIndex(CommentRepository commentRepository, PlatformTransactionManager transactionManager) {
+        this.commentRepository = commentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        requestRebuild();
+    }
+
+    /**
+     * Запрос полного перестроения индекса в фоновом потоке.
+     * Запросы, пришедшие до начала перестроения, объединяются в одно. Запрос во время
+     * перестроения запускает ещё одно после него: текущее могло не увидеть изменения,
+     * зафиксированные перед запросом.
+     */
+    public void requestRebuild() {
+        if (rebuildRequested.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildRequested.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    /**
+     * Полное построение индекса из таблицы comment потоковым чтением.
+     * Поиск во время построения продолжает работать по предыдущему индексу.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                return;
+            }
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long started = System.nanoTime();
+        InvertedIndex built = new InvertedIndex();
+        try {
+            // Индекс строится с основной базы: после массовых изменений реплика может отставать
+            PrimaryReads.run(() -> readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<CommentDto> comments = commentRepository.streamAllDtos()) {
+                    comments.forEach(comment -> built.add(comment.getId(), comment.getText()));
+                }
+            }));
+        } catch (RuntimeException e) {
+            log.error("Comment search index build failed", e);
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            pending.forEach(change -> change.accept(built));
+            pending = null;
+            index = built;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        buildMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Comment search index built in {} ms: {}", buildMillis, stats());
+    }
+
+    /**
+     * Поиск комментариев, содержащих все слова запроса.
+     *
+     * @param query строка запроса
+     * @param limit сколько идентификаторов вернуть
+     * @return идентификаторы комментариев по убыванию релевантности, при равной - от новых к старым
+     */
+    public List<Integer> search(String query, int limit) {
+        Set<String> tokens = InvertedIndex.tokenize(query);
+        lock.readLock().lock();
+        try {
+            return index.search(tokens, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Проверка текста на все слова запроса без изменения индекса.
+     *
+     * @param text текст комментария (null - комментария нет)
+     * @param query строка запроса
+     * @return true, если текст содержит все слова запроса
+     */
+    public static boolean matches(String text, String query) {
+        return InvertedIndex.tokenize(text).containsAll(InvertedIndex.tokenize(query));
+    }
+
+    /**
+     * Проверка, что текст найденного комментария действительно содержит все слова запроса.
+     * Если индекс устарел (например, комментарии удалены каскадно вместе с автором),
+     * лишние записи удаляются из индекса.
+     *
+     * @param id идентификатор комментария
+     * @param text текущий текст комментария (null - комментарий удалён)
+     * @param query строка запроса
+     * @return true, если комментарий подходит под запрос
+     */
+    public boolean verify(int id, String text, String query) {
+        Set<String> tokens = InvertedIndex.tokenize(text);
+        List<String> stale = InvertedIndex.tokenize(query).stream().filter(token -> !tokens.contains(token)).toList();
+        if (!stale.isEmpty()) {
+            apply(current -> stale.forEach(token -> current.removeToken(id, token)));
+        }
+        return stale.isEmpty();
+    }
+
+    public void add(int id, String text) {
+        apply(current -> current.add(id, text));
+    }
+
+    public void update(int id, String oldText, String newText) {
+        apply(current -> {
+            current.remove(id, oldText);
+            current.add(id, newText);
+        });
+    }
+
+    public void remove(int id, String text) {
+        apply(current -> current.remove(id, text));
+    }
+
+    /**
+     * Статистика индекса, в том числе оценка занимаемой памяти.
+     */
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("ready", ready);
+            stats.put("terms", index.terms());
+            stats.put("postings", index.postingsCount());
+            stats.put("estimatedBytes", index.estimatedBytes());
+            stats.put("buildMillis", buildMillis);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<InvertedIndex> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        rebuilder.shutdownNow();
+    }
+}
@@ -0,0 +1,266 @@
+package org.example.frameworks.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+
+/**
+ * TODO: Данный класс представляет собой инвертированный индекс: для каждого слова
+ *  хранится отсортированный массив int идентификаторов документов (без упаковки в Integer)
+ *  и параллельный массив byte с числом вхождений слова в документ для ранжирования.
+ *  Класс не потокобезопасен, синхронизацию обеспечивает CommentSearchIndex.
+ */
+class InvertedIndex {
+
+    /**
+     * Слова короче не индексируются.
+     */
+    static final int MIN_TOKEN_LENGTH = 2;
+
+    /**
+     * Слова длиннее обрезаются, чтобы случайные длинные строки не раздували словарь.
+     */
+    static final int MAX_TOKEN_LENGTH = 64;
+
+    /**
+     * Число вхождений слова в документ больше не различается при ранжировании.
+     */
+    static final int MAX_TERM_COUNT = Byte.MAX_VALUE;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    /**
+     * Разбиение текста на слова: последовательности букв и цифр в нижнем регистре, без повторов.
+     *
+     * @param text текст (null - пустой)
+     * @return слова в порядке первого появления
+     */
+    static Set<String> tokenize(String text) {
+        return new LinkedHashSet<>(termCounts(text).keySet());
+    }
+
+    /**
+     * Число вхождений каждого слова в текст.
+     *
+     * @param text текст (null - пустой)
+     * @return слова в порядке первого появления и число их вхождений
+     */
+    static Map<String, Integer> termCounts(String text) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        if (text == null) {
+            return counts;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= MIN_TOKEN_LENGTH) {
+                    counts.merge(text.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH)).toLowerCase(Locale.ROOT),
+                            1, Integer::sum);
+                }
+                start = -1;
+            }
+        }
+        return counts;
+    }
+
+    void add(int id, String text) {
+        termCounts(text).forEach((token, count) ->
+                postings.computeIfAbsent(token, key -> new Postings()).add(id, Math.min(count, MAX_TERM_COUNT)));
+    }
+
+    void remove(int id, String text) {
+        for (String token : tokenize(text)) {
+            removeToken(id, token);
+        }
+    }
+
+    void removeToken(int id, String token) {
+        Postings list = postings.get(token);
+        if (list != null && list.remove(id) && list.live == 0) {
+            postings.remove(token);
+        }
+    }
+
+    /**
+     * Поиск документов, содержащих все слова запроса, по убыванию релевантности.
+     * Релевантность - суммарное число вхождений слов запроса в документ, при равной
+     * релевантности новые документы (с большим id) идут первыми.
+     * Перебирается самый короткий список, остальные проверяются двоичным поиском,
+     * лучшие limit документов отбираются кучей размера limit.
+     *
+     * @param tokens слова запроса
+     * @param limit сколько документов вернуть
+     * @return идентификаторы документов
+     */
+    List<Integer> search(Set<String> tokens, int limit) {
+        List<Integer> result = new ArrayList<>();
+        if (tokens.isEmpty() || limit <= 0) {
+            return result;
+        }
+        Postings[] lists = new Postings[tokens.size()];
+        int n = 0;
+        for (String token : tokens) {
+            Postings list = postings.get(token);
+            if (list == null) {
+                return result;
+            }
+            lists[n++] = list;
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.live, b.live));
+        Postings shortest = lists[0];
+        // Старшие 32 бита - релевантность, младшие - id: порядок long совпадает с порядком выдачи
+        PriorityQueue<Long> best = new PriorityQueue<>();
+        for (int i = shortest.size - 1; i >= 0; i--) {
+            long score = shortest.counts[i];
+            for (int j = 1; j < lists.length && score > 0; j++) {
+                int count = lists[j].count(shortest.ids[i]);
+                score = count > 0 ? score + count : 0;
+            }
+            if (score > 0) {
+                long ranked = score << 32 | shortest.ids[i];
+                if (best.size() < limit) {
+                    best.add(ranked);
+                } else if (best.peek() < ranked) {
+                    best.poll();
+                    best.add(ranked);
+                }
+            }
+        }
+        while (!best.isEmpty()) {
+            result.add((int) best.poll().longValue());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    int terms() {
+        return postings.size();
+    }
+
+    long postingsCount() {
+        long count = 0;
+        for (Postings list : postings.values()) {
+            count += list.live;
+        }
+        return count;
+    }
+
+    /**
+     * Оценка занимаемой памяти в байтах: массивы идентификаторов, объекты списков,
+     * строки словаря и узлы HashMap (для 64-битной JVM со сжатыми указателями).
+     */
+    long estimatedBytes() {
+        long bytes = 16L + 4L * postings.size() * 2; // таблица HashMap с запасом по load factor
+        for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+            bytes += 32;                                    // узел HashMap
+            bytes += 24 + 16 + entry.getKey().length() * 2L; // String и его массив (худший случай UTF-16)
+            bytes += 16 + 16 + 5L * entry.getValue().ids.length; // ids и counts
+        }
+        return bytes;
+    }
+
+    /**
+     * Отсортированный по возрастанию массив идентификаторов и число вхождений слова в каждый документ.
+     * Идентификаторы выдаются последовательностью, поэтому добавление почти всегда идёт в конец.
+     * Удаление только помечает документ нулевым числом вхождений, массивы уплотняются,
+     * когда помеченных становится больше половины: удаление не сдвигает массив целиком под блокировкой.
+     */
+    private static final class Postings {
+
+        private int[] ids = new int[4];
+
+        private byte[] counts = new byte[4];
+
+        /**
+         * Занятая часть массивов, вместе с удалёнными документами.
+         */
+        private int size;
+
+        /**
+         * Число неудалённых документов.
+         */
+        private int live;
+
+        void add(int id, int count) {
+            if (size == 0 || ids[size - 1] < id) {
+                ensureCapacity();
+                ids[size] = id;
+                counts[size++] = (byte) count;
+                live++;
+                return;
+            }
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                if (counts[pos] == 0) {
+                    live++;
+                }
+                counts[pos] = (byte) count;
+                return;
+            }
+            int insertAt = -pos - 1;
+            ensureCapacity();
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            System.arraycopy(counts, insertAt, counts, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            counts[insertAt] = (byte) count;
+            size++;
+            live++;
+        }
+
+        boolean remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0 || counts[pos] == 0) {
+                return false;
+            }
+            counts[pos] = 0;
+            live--;
+            if (live < size / 2) {
+                compact();
+            }
+            return true;
+        }
+
+        /**
+         * @return число вхождений слова в документ (0 - документа в списке нет)
+         */
+        int count(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            return pos >= 0 ? counts[pos] : 0;
+        }
+
+        private void compact() {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (counts[i] != 0) {
+                    ids[kept] = ids[i];
+                    counts[kept++] = counts[i];
+                }
+            }
+            size = kept;
+            if (size > 16 && size < ids.length / 4) {
+                ids = Arrays.copyOf(ids, ids.length / 2);
+                counts = Arrays.copyOf(counts, counts.length / 2);
+            }
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                int capacity = ids.length + (ids.length >> 1) + 1;
+                ids = Arrays.copyOf(ids, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.frameworks.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+
+/**
+ * TODO: Вспомогательный класс для действий, которые нужно выполнить
+ *  только после фиксации текущей транзакции (сброс кэшей, счётчики изменений).
+ *  Без активной транзакции действие выполняется сразу.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Выполнение действия после фиксации текущей транзакции.
+     * При откате транзакции действие не выполняется.
+     *
+     * @param action действие
+     */
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
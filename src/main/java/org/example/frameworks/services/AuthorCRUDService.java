@@ -1,13 +1,37 @@
 package org.example.frameworks.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.frameworks.cache.ReadThroughCache;
+import org.example.frameworks.config.PrimaryReads;
 import org.example.frameworks.dto.AuthorDto;
+import org.example.frameworks.dto.CommentDto;
+import org.example.frameworks.dto.CursorPageDto;
 import org.example.frameworks.entity.Author;
 import org.example.frameworks.repository.AuthorRepository;
+import org.example.frameworks.repository.CommentRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 
 /**
@@ -21,6 +45,26 @@ import java.util.Collection;
 @RequiredArgsConstructor
 public class AuthorCRUDService implements CRUDService<AuthorDto> {
 
+    /**
+     * В лог чтений попадает каждый сотый вызов.
+     */
+    private static final LogSampler READ_LOG = new LogSampler(100);
+
+    /**
+     * Сколько идентификаторов авторов передавать в один запрос IN (...) за комментариями.
+     */
+    private static final int IN_CHUNK = 1000;
+
+    /**
+     * Максимальное количество авторов в одном запросе на удаление.
+     */
+    private static final int MAX_BULK_IDS = 10_000;
+
+    /**
+     * Поля автора, которые можно запросить в fields=... и include=...
+     */
+    private static final Map<String, FieldSet.Field<AuthorDto>> FIELDS = fields();
+
     /**
      * Репозиторий для работы с базой данных.
      * Инъектируется через конструктор благодаря @RequiredArgsConstructor.
@@ -28,34 +72,223 @@ public class AuthorCRUDService implements CRUDService<AuthorDto> {
 
     private final AuthorRepository repository;
 
+    /**
+     * Репозиторий комментариев: комментарии авторов читаются проекцией в DTO.
+     */
+    private final CommentRepository commentRepository;
+
+    /**
+     * Контекст персистентности, из которого отсоединяются авторы при выгрузке.
+     */
+    private final EntityManager entityManager;
+
+    /**
+     * Сериализатор JSON для потоковой выгрузки.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Кэш авторов по идентификатору.
+     */
+    private final ReadThroughCache<AuthorDto> authorCache;
+
+    /**
+     * Кэш комментариев: при удалении автора удаляются и его комментарии.
+     */
+    private final ReadThroughCache<CommentDto> commentCache;
+
+    /**
+     * Счётчики изменений таблиц для ETag списков.
+     */
+    private final CollectionVersions collectionVersions;
+
+    /**
+     * Рейтинг лучших авторов, обновляется после каждой записи.
+     */
+    private final AuthorLeaderboard leaderboard;
+
+    /**
+     * Накопитель увеличений рейтинга, которые ещё не записаны в базу данных.
+     */
+    private final RatingAccumulator ratingAccumulator;
+
 
     /**
      * Получение автора по идентификатору.
      * Логирует попытку получения и выбрасывает исключение, если автор не найден.
+     * Автор и его комментарии читаются проекциями сразу в DTO и только при промахе кэша.
      *
      * @param id идентификатор автора
      * @return DTO объект автора
      */
     @Override
+    @Transactional(readOnly = true)
     public AuthorDto getById(Integer id) {
-        log.info("Get by id " + id);
-        return mapToDto(repository.findById(id).orElseThrow());
+        if (log.isDebugEnabled() && READ_LOG.sample()) {
+            log.debug("Get by id {}", id);
+        }
+        // Кэш заполняется только с основной базы: данные отстающей реплики остались бы в нём до конца TTL
+        return authorCache.get(id, key -> PrimaryReads.call(() -> {
+            AuthorDto authorDto = repository.findDtoById(key).orElseThrow();
+            attachComments(List.of(authorDto));
+            return authorDto;
+        }));
 
     }
 
 
     /**
      * Получение всех авторов.
-     * Преобразует все сущности в DTO объекты.
+     * Авторы и комментарии читаются проекциями сразу в DTO,
+     * комментарии - пачками по IN_CHUNK авторов, а не по одному запросу на автора.
      *
      * @return коллекция DTO объектов авторов
      */
     @Override
+    @Transactional(readOnly = true)
     public Collection<AuthorDto> getAll() {
-        return repository.findAll()
-                .stream()
-                .map(AuthorCRUDService::mapToDto)
-                .toList();
+        List<AuthorDto> authors = repository.findAllDtos();
+        attachComments(authors);
+        return authors;
+    }
+
+    /**
+     * Получение страницы авторов по курсору.
+     * Запрашивает на одну запись больше, чтобы понять, есть ли следующая страница.
+     *
+     * @param after курсор, после которого начинается страница (null - с начала)
+     * @param limit размер страницы (ограничивается сервером)
+     * @return страница DTO объектов авторов и курсор следующей страницы
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<AuthorDto> getPage(String after, Integer limit) {
+        int size = Cursors.limit(limit);
+        List<AuthorDto> authors = repository.findDtoPage(Cursors.decodeId(after), PageRequest.of(0, size + 1));
+        boolean hasNext = authors.size() > size;
+        List<AuthorDto> items = hasNext ? authors.subList(0, size) : authors;
+        attachComments(items);
+        String nextCursor = hasNext ? Cursors.encodeId(items.get(items.size() - 1).getId()) : null;
+        return new CursorPageDto<>(items, nextCursor);
+    }
+
+    /**
+     * Получение страницы авторов по курсору только с запрошенными полями.
+     * Комментарии читаются, только если они запрошены (include=comments или fields=...,comments).
+     *
+     * @param after курсор, после которого начинается страница (null - с начала)
+     * @param limit размер страницы (ограничивается сервером)
+     * @param fields поля автора через запятую (null - все)
+     * @param include связи через запятую (comments)
+     * @param includePending добавить к рейтингу ещё не записанные увеличения
+     * @return страница DTO объектов авторов и курсор следующей страницы
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<AuthorDto> getPage(String after, Integer limit, String fields, String include,
+                                            boolean includePending) {
+        FieldSet<AuthorDto> fieldSet = FieldSet.parse(fields, include, FIELDS);
+        if (fieldSet.isAll()) {
+            CursorPageDto<AuthorDto> page = getPage(after, limit);
+            if (includePending) {
+                ratingAccumulator.applyPending(page.getItems());
+            }
+            return page;
+        }
+        int size = Cursors.limit(limit);
+        Integer afterId = Cursors.decodeId(after);
+        List<AuthorDto> authors = fieldSet.select(entityManager, Author.class, AuthorDto::new,
+                (cb, root) -> cb.greaterThan(root.get("id"), afterId), size + 1);
+        boolean hasNext = authors.size() > size;
+        List<AuthorDto> items = hasNext ? authors.subList(0, size) : authors;
+        if (fieldSet.contains("comments")) {
+            attachComments(items);
+        }
+        if (includePending) {
+            ratingAccumulator.applyPending(items);
+        }
+        String nextCursor = hasNext ? Cursors.encodeId(items.get(items.size() - 1).getId()) : null;
+        return new CursorPageDto<>(items, nextCursor);
+    }
+
+    /**
+     * Получение нескольких авторов по идентификаторам одним запросом с IN (...).
+     * Несуществующие идентификаторы пропускаются, авторы упорядочены по id.
+     *
+     * @param ids идентификаторы авторов (не больше Cursors.MAX_LIMIT)
+     * @param fields поля автора через запятую (null - все)
+     * @param include связи через запятую (comments)
+     * @param includePending добавить к рейтингу ещё не записанные увеличения
+     * @return DTO объекты найденных авторов
+     */
+    @Transactional(readOnly = true)
+    public List<AuthorDto> getByIds(Collection<Integer> ids, String fields, String include, boolean includePending) {
+        if (ids.size() > Cursors.MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Too many ids in one request: " + ids.size() + " > " + Cursors.MAX_LIMIT);
+        }
+        FieldSet<AuthorDto> fieldSet = FieldSet.parse(fields, include, FIELDS);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<AuthorDto> authors = fieldSet.isAll()
+                ? repository.findDtosByIds(ids)
+                : fieldSet.select(entityManager, Author.class, AuthorDto::new,
+                        (cb, root) -> root.get("id").in(ids), null);
+        if (fieldSet.contains("comments")) {
+            attachComments(authors);
+        }
+        if (includePending) {
+            ratingAccumulator.applyPending(authors);
+        }
+        return authors;
+    }
+
+    /**
+     * Получение страницы авторов вместе с версией списка для ETag.
+     * Версия и страница читаются в одной read-only транзакции, то есть с одной и той же реплики:
+     * версия, прочитанная с основной базы, могла бы оказаться новее страницы с отстающей реплики.
+     *
+     * @param after курсор, после которого начинается страница (null - с начала)
+     * @param limit размер страницы (ограничивается сервером)
+     * @param fields поля автора через запятую (null - все)
+     * @param include связи через запятую (comments)
+     * @param notModified проверка версии: true - у клиента уже есть эта версия, страница не читается
+     * @return версия списка и страница (null, если notModified вернула true)
+     */
+    @Transactional(readOnly = true)
+    public CollectionVersions.Versioned<CursorPageDto<AuthorDto>> getVersionedPage(String after, Integer limit,
+                                                                                   String fields, String include,
+                                                                                   Predicate<String> notModified) {
+        String version = getCollectionVersion();
+        return new CollectionVersions.Versioned<>(version,
+                notModified.test(version) ? null : getPage(after, limit, fields, include, false));
+    }
+
+    /**
+     * Версия списка авторов для ETag.
+     * Учитывает и авторов, и комментарии, так как автор содержит свои комментарии.
+     * Не читает саму таблицу author.
+     *
+     * @return счётчики изменений авторов и комментариев, например "a12.c40"
+     */
+    @Transactional(readOnly = true)
+    public String getCollectionVersion() {
+        return "a" + collectionVersions.get(CollectionVersions.AUTHORS)
+                + ".c" + collectionVersions.get(CollectionVersions.COMMENTS);
+    }
+
+    /**
+     * Потоковая выгрузка всех авторов в формате NDJSON.
+     * Авторы выгружаются без комментариев (они доступны через /comment/export),
+     * читаются курсором и отсоединяются после записи.
+     *
+     * @param out выходной поток ответа
+     */
+    @Transactional(readOnly = true)
+    public void exportNdjson(OutputStream out) throws IOException {
+        long written = NdjsonExporter.write(repository.streamAll(), author -> mapToDto(author, false),
+                entityManager, objectMapper, out);
+        log.info("Exported {} authors", written);
     }
 
     /**
@@ -67,19 +300,102 @@ public class AuthorCRUDService implements CRUDService<AuthorDto> {
 
     @Override
     public void create(AuthorDto authorDto) {
-        repository.save(mapToEntity(authorDto));
+        Author author = repository.save(mapToEntity(authorDto));
+        collectionVersions.bump(CollectionVersions.AUTHORS);
+        leaderboard.upsert(mapToDto(author, false));
 
     }
 
     /**
      * Обновление существующего автора.
-     * Преобразует DTO в сущность и сохраняет в базе данных.
+     * Загружает автора и меняет только его собственные поля,
+     * версия записи увеличивается Hibernate при фиксации.
+     * Кэш сбрасывается после фиксации транзакции.
      *
      * @param authorDto данные автора для обновления
      */
     @Override
+    @Transactional
     public void update(AuthorDto authorDto) {
-        repository.save(mapToEntity(authorDto));
+        Author author = repository.findById(authorDto.getId()).orElseThrow();
+        author.setFirstName(authorDto.getFirstName());
+        author.setLastName(authorDto.getLastName());
+        author.setRating(authorDto.getRating());
+        collectionVersions.bump(CollectionVersions.AUTHORS);
+        AfterCommit.run(() -> {
+            authorCache.invalidate(authorDto.getId());
+            leaderboard.upsert(mapToDto(author, false));
+        });
+    }
+
+    /**
+     * Частичное обновление автора одним запросом UPDATE только по переданным полям
+     * (null - поле не меняется). Автор и его комментарии не загружаются.
+     * Если передана ожидаемая версия, а в базе данных уже другая, обновление не выполняется.
+     *
+     * @param id идентификатор автора
+     * @param patch новые значения полей
+     * @param expectedVersion ожидаемая версия записи (null - любая)
+     * @throws ResponseStatusException 404, если автора нет; 412, если версия изменилась
+     */
+    @Transactional
+    public void patch(Integer id, AuthorDto patch, Long expectedVersion) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Author> update = cb.createCriteriaUpdate(Author.class);
+        Root<Author> root = update.from(Author.class);
+        boolean changed = false;
+        if (patch.getFirstName() != null) {
+            update.set(root.<String>get("firstName"), patch.getFirstName());
+            changed = true;
+        }
+        if (patch.getLastName() != null) {
+            update.set(root.<String>get("lastName"), patch.getLastName());
+            changed = true;
+        }
+        if (patch.getRating() != null) {
+            update.set(root.<Long>get("rating"), patch.getRating());
+            changed = true;
+        }
+        if (!changed) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nothing to update");
+        }
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+        update.where(expectedVersion == null
+                ? cb.equal(root.get("id"), id)
+                : cb.and(cb.equal(root.get("id"), id), cb.equal(root.get("version"), expectedVersion)));
+        if (entityManager.createQuery(update).executeUpdate() == 0) {
+            if (!repository.existsById(id)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Author not found: " + id);
+            }
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Author " + id + " was modified concurrently");
+        }
+        AuthorDto patched = repository.findDtoById(id).orElseThrow();
+        collectionVersions.bump(CollectionVersions.AUTHORS);
+        AfterCommit.run(() -> {
+            authorCache.invalidate(id);
+            leaderboard.upsert(patched);
+        });
+    }
+
+    /**
+     * Увеличение рейтинга автора без блокировки строки и без транзакции.
+     * Изменение попадает в базу данных пакетом в течение app.rating.flush-interval.
+     *
+     * @param id идентификатор автора
+     * @param delta изменение рейтинга
+     */
+    public void incrementRating(Integer id, long delta) {
+        ratingAccumulator.increment(id, delta);
+    }
+
+    /**
+     * Получение лучших авторов по рейтингу из рейтинга в памяти.
+     *
+     * @param n сколько авторов вернуть
+     * @return авторы без комментариев, по убыванию рейтинга
+     */
+    public List<AuthorDto> getTop(int n) {
+        return leaderboard.top(n);
     }
 
 
@@ -89,11 +405,73 @@ public class AuthorCRUDService implements CRUDService<AuthorDto> {
      * @param id идентификатор автора для удаления
      */
     @Override
+    @Transactional
     public void delete(Integer id) {
-        repository.deleteById(id);
+        deleteAll(List.of(id));
 
     }
 
+    /**
+     * Удаление нескольких авторов одним запросом DELETE ... WHERE id IN (...).
+     * Авторы и комментарии не загружаются: комментарии удаляет сама база данных
+     * по внешнему ключу ON DELETE CASCADE. Кэши сбрасываются после фиксации транзакции.
+     *
+     * @param ids идентификаторы авторов
+     * @return количество удалённых авторов
+     */
+    @Transactional
+    public int deleteAll(Collection<Integer> ids) {
+        if (ids.size() > MAX_BULK_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Too many authors in one request: " + ids.size() + " > " + MAX_BULK_IDS);
+        }
+        Set<Integer> unique = new LinkedHashSet<>(ids);
+        if (unique.isEmpty()) {
+            return 0;
+        }
+        int deleted = repository.deleteByIds(unique);
+        collectionVersions.bump(CollectionVersions.AUTHORS);
+        collectionVersions.bump(CollectionVersions.COMMENTS);
+        AfterCommit.run(() -> {
+            unique.forEach(id -> {
+                authorCache.invalidate(id);
+                leaderboard.remove(id);
+            });
+            ratingAccumulator.forget(unique);
+            commentCache.invalidateAll(); // Комментарии авторов удалены каскадно, их идентификаторы заранее неизвестны
+        });
+        log.info("Deleted {} authors", deleted);
+        return deleted;
+    }
+
+    /**
+     * Заполнение списков комментариев у авторов.
+     * Комментарии читаются проекцией в DTO одним запросом на каждые IN_CHUNK авторов.
+     *
+     * @param authors DTO авторов без комментариев
+     */
+    private void attachComments(List<AuthorDto> authors) {
+        for (int from = 0; from < authors.size(); from += IN_CHUNK) {
+            List<AuthorDto> chunk = authors.subList(from, Math.min(from + IN_CHUNK, authors.size()));
+            Map<Integer, List<CommentDto>> byAuthor = commentRepository
+                    .findDtosByAuthorIds(chunk.stream().map(AuthorDto::getId).toList())
+                    .stream()
+                    .collect(Collectors.groupingBy(CommentDto::getAuthorId));
+            chunk.forEach(author -> author.setComments(byAuthor.getOrDefault(author.getId(), new ArrayList<>())));
+        }
+    }
+
+    private static Map<String, FieldSet.Field<AuthorDto>> fields() {
+        Map<String, FieldSet.Field<AuthorDto>> fields = new LinkedHashMap<>();
+        fields.put("id", new FieldSet.Field<>("id", (dto, value) -> dto.setId((Integer) value)));
+        fields.put("firstName", new FieldSet.Field<>("firstName", (dto, value) -> dto.setFirstName((String) value)));
+        fields.put("lastName", new FieldSet.Field<>("lastName", (dto, value) -> dto.setLastName((String) value)));
+        fields.put("rating", new FieldSet.Field<>("rating", (dto, value) -> dto.setRating((Long) value)));
+        fields.put("version", new FieldSet.Field<>("version", (dto, value) -> dto.setVersion((Long) value)));
+        fields.put("comments", new FieldSet.Field<>(null, (dto, value) -> { }));
+        return fields;
+    }
+
     /**
      * Преобразование DTO в сущность.
      * Рекурсивно преобразует вложенные комментарии.
@@ -107,11 +485,13 @@ public class AuthorCRUDService implements CRUDService<AuthorDto> {
         author.setFirstName(authorDto.getFirstName());
         author.setLastName(authorDto.getLastName());
         author.setRating(authorDto.getRating());
-        author.setComments(
-           authorDto.getComments()
-              .stream()
-              .map(CommentCRUDService::mapToEntity)
-        .toList());
+        if (authorDto.getComments() != null) {
+            author.setComments(
+               authorDto.getComments()
+                  .stream()
+                  .map(CommentCRUDService::mapToEntity)
+            .toList());
+        }
         return author;
 
     }
@@ -124,17 +504,32 @@ public class AuthorCRUDService implements CRUDService<AuthorDto> {
      * @return DTO объект автора
      */
     public static AuthorDto mapToDto(Author author) {
+        return mapToDto(author, true);
+    }
+
+    /**
+     * Преобразование сущности в DTO.
+     * Комментарии преобразуются только по запросу, иначе коллекция не загружается.
+     *
+     * @param author сущность для преобразования
+     * @param withComments нужно ли преобразовывать комментарии автора
+     * @return DTO объект автора
+     */
+    public static AuthorDto mapToDto(Author author, boolean withComments) {
         AuthorDto authorDto = new AuthorDto();
         authorDto.setId(author.getId());
         authorDto.setFirstName(author.getFirstName());
         authorDto.setLastName(author.getLastName());
         authorDto.setRating(author.getRating());
-        authorDto.setComments(
-             author.getComments()
-                .stream()
-                .map(CommentCRUDService::mapToDto)
-                .toList()
-        );
+        authorDto.setVersion(author.getVersion());
+        if (withComments) {
+            authorDto.setComments(
+                 author.getComments()
+                    .stream()
+                    .map(CommentCRUDService::mapToDto)
+                    .toList()
+            );
+        }
         return authorDto;
     }
 }
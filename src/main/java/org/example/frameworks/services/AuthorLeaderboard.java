@@ -0,0 +1,205 @@
+package org.example.frameworks.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.frameworks.config.PrimaryReads;
+import org.example.frameworks.dto.AuthorDto;
+import org.example.frameworks.repository.AuthorRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * TODO: Данный класс представляет собой рейтинг лучших авторов (top-K по rating),
+ *  который хранится в памяти и обновляется инкрементально при создании,
+ *  изменении и удалении авторов. Первоначально строится одним запросом по индексу author.rating.
+ *  Записи сериализуются блокировкой и меняют только дерево за O(log K), снимок для чтения
+ *  не копируется, а помечается устаревшим. Неизменяемый снимок строится за O(K) первым чтением
+ *  после изменений, остальные чтения идут по нему без блокировки.
+ */
+@Slf4j
+@Component
+public class AuthorLeaderboard {
+
+    /**
+     * Порядок рейтинга: по убыванию rating, при равенстве - по возрастанию id.
+     */
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::rating).reversed()
+            .thenComparing(Entry::id);
+
+    /**
+     * Запись рейтинга: собственные поля автора, версия защищает от применения устаревших изменений.
+     */
+    private record Entry(Integer id, long rating, String firstName, String lastName, long version) {
+
+        AuthorDto toDto() {
+            return new AuthorDto(id, firstName, lastName, rating, version);
+        }
+    }
+
+    private final AuthorRepository repository;
+
+    /**
+     * Сколько лучших авторов держать в памяти.
+     */
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final TreeSet<Entry> ranked = new TreeSet<>(ORDER);
+
+    private final Map<Integer, Entry> byId = new HashMap<>();
+
+    /**
+     * true, если в таблице есть авторы хуже последнего из ranked, которых нет в памяти.
+     */
+    private boolean truncated;
+
+    private boolean loaded;
+
+    /**
+     * Неизменяемый снимок рейтинга для чтения без блокировки (null - устарел после изменений).
+     */
+    private volatile List<AuthorDto> snapshot;
+
+    public AuthorLeaderboard(AuthorRepository repository,
+                             @Value("${app.leaderboard.capacity:1000}") int capacity) {
+        this.repository = repository;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Получение лучших авторов по рейтингу.
+     *
+     * @param n сколько авторов вернуть (не больше ёмкости рейтинга)
+     * @return авторы без комментариев, по убыванию рейтинга
+     */
+    public List<AuthorDto> top(int n) {
+        int size = Math.max(0, Math.min(n, capacity));
+        List<AuthorDto> current = snapshot;
+        if (current == null || current.size() < size || !loaded) {
+            lock.lock();
+            try {
+                if (!loaded || (truncated && ranked.size() < size)) {
+                    reload();
+                }
+                if (snapshot == null) {
+                    snapshot = ranked.stream().map(Entry::toDto).toList();
+                }
+                current = snapshot;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current.subList(0, Math.min(size, current.size()));
+    }
+
+    /**
+     * Учёт созданного или изменённого автора.
+     * Вызывается после фиксации транзакции.
+     *
+     * @param author собственные поля автора (rating null - автор не участвует в рейтинге)
+     */
+    public void upsert(AuthorDto author) {
+        lock.lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            Entry old = byId.get(author.getId());
+            long version = author.getVersion() != null ? author.getVersion() : 0L;
+            if (old != null && old.version() > version) {
+                return;
+            }
+            boolean changed = removeEntry(old);
+            if (author.getRating() != null) {
+                Entry entry = new Entry(author.getId(), author.getRating(), author.getFirstName(),
+                        author.getLastName(), version);
+                if (!truncated || (!ranked.isEmpty() && ORDER.compare(entry, ranked.last()) < 0)) {
+                    ranked.add(entry);
+                    byId.put(entry.id(), entry);
+                    if (ranked.size() > capacity) {
+                        byId.remove(ranked.pollLast().id());
+                        truncated = true;
+                    }
+                    changed = true;
+                }
+            }
+            if (changed) {
+                snapshot = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Учёт удалённого автора.
+     * Вызывается после фиксации транзакции.
+     *
+     * @param id идентификатор автора
+     */
+    public void remove(Integer id) {
+        lock.lock();
+        try {
+            if (loaded && removeEntry(byId.get(id))) {
+                snapshot = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Сброс рейтинга: при следующем чтении он будет построен заново из базы данных.
+     * Нужен после массовых изменений в обход сервиса.
+     */
+    public void invalidate() {
+        lock.lock();
+        try {
+            loaded = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Удаление записи из рейтинга.
+     *
+     * @return true, если запись была в рейтинге
+     */
+    private boolean removeEntry(Entry entry) {
+        if (entry == null) {
+            return false;
+        }
+        ranked.remove(entry);
+        byId.remove(entry.id());
+        return true;
+    }
+
+    /**
+     * Построение рейтинга одним запросом по индексу idx_author_rating (на основной базе).
+     */
+    private void reload() {
+        List<AuthorDto> top = PrimaryReads.call(() -> repository.findTopByRating(PageRequest.of(0, capacity + 1)));
+        ranked.clear();
+        byId.clear();
+        top.stream().limit(capacity).forEach(author -> {
+            Entry entry = new Entry(author.getId(), author.getRating(), author.getFirstName(),
+                    author.getLastName(), author.getVersion() != null ? author.getVersion() : 0L);
+            ranked.add(entry);
+            byId.put(entry.id(), entry);
+        });
+        truncated = top.size() > capacity;
+        loaded = true;
+        snapshot = null;
+        log.info("Author leaderboard loaded: {} authors, truncated {}", ranked.size(), truncated);
+    }
+}
@@ -1,11 +1,14 @@
 package org.example.frameworks.services;
 
+import org.example.frameworks.dto.CursorPageDto;
+
 import java.util.Collection;
 
 public interface CRUDService<T> {
 
     T getById(Integer id);
     Collection<T> getAll();
+    CursorPageDto<T> getPage(String after, Integer limit);
     void create(T item);
     void update(T item);
     void delete(Integer id);
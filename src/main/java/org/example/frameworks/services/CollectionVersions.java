@@ -0,0 +1,105 @@
+package org.example.frameworks.services;
+
+import lombok.RequiredArgsConstructor;
+import org.example.frameworks.repository.CollectionVersionRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * TODO: Данный класс отвечает за счётчики изменений коллекций (таблиц author и comment),
+ *  из которых строятся ETag для списков. Счётчик увеличивается в той же транзакции,
+ *  что и данные, непосредственно перед её фиксацией: новый ETag становится виден
+ *  одновременно с новыми данными, второе соединение из пула не нужно,
+ *  а блокировка строки счётчика удерживается только на время фиксации.
+ *  Счётчик каждой таблицы разбит на STRIPES строк, транзакция увеличивает случайную из них,
+ *  а версия - сумма строк: параллельные записи в одну таблицу обычно не ждут друг друга
+ *  на одной строке, а версия по-прежнему растёт ровно на единицу с каждой фиксацией.
+ */
+@Component
+@RequiredArgsConstructor
+public class CollectionVersions {
+
+    public static final String AUTHORS = "author";
+    public static final String COMMENTS = "comment";
+
+    /**
+     * Количество полос счётчика каждой таблицы (создаются changeSet stripeCollectionVersion).
+     */
+    static final int STRIPES = 16;
+
+    private final CollectionVersionRepository repository;
+
+    /**
+     * Значение, прочитанное в одной транзакции с версией коллекции.
+     *
+     * @param version версия коллекции для ETag
+     * @param value значение (null - версия совпала с той, что уже есть у клиента)
+     */
+    public record Versioned<T>(String version, T value) {
+    }
+
+    /**
+     * Текущая версия коллекции.
+     * Без транзакции читается из основной базы, поэтому для ETag списка её нужно читать
+     * в той же read-only транзакции, что и сами данные: тогда обе выборки идут на одну реплику,
+     * и данные ответа не могут оказаться старее версии.
+     *
+     * @param name имя коллекции
+     * @return сумма полос счётчика изменений (0, если счётчика нет)
+     */
+    public long get(String name) {
+        return repository.findVersion(name).orElse(0L);
+    }
+
+    /**
+     * Отметка об изменении коллекции.
+     * Внутри транзакции счётчик увеличивается один раз перед её фиксацией, иначе - сразу.
+     * Счётчики транзакции увеличиваются в порядке имён, чтобы параллельные транзакции
+     * не блокировали друг друга взаимно: у каждой транзакции не больше одной полосы на имя.
+     *
+     * @param name имя коллекции
+     */
+    @SuppressWarnings("unchecked")
+    public void bump(String name) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            increment(name);
+            return;
+        }
+        Set<String> names = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (names == null) {
+            Set<String> bumped = new TreeSet<>();
+            TransactionSynchronizationManager.bindResource(this, bumped);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    bumped.forEach(CollectionVersions.this::increment);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CollectionVersions.this);
+                }
+            });
+            names = bumped;
+        }
+        names.add(name);
+    }
+
+    /**
+     * Увеличение случайной полосы счётчика. Если полосы нет (база без changeSet stripeCollectionVersion
+     * или счётчик создан одной строкой), увеличивается полоса 0.
+     */
+    private void increment(String name) {
+        int stripe = ThreadLocalRandom.current().nextInt(STRIPES);
+        if (repository.increment(name, stripe) == 0 && stripe != 0) {
+            repository.increment(name, 0);
+        }
+    }
+}
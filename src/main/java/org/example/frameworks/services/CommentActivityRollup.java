@@ -0,0 +1,215 @@
+package org.example.frameworks.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.frameworks.dto.ActivityBucketDto;
+import org.example.frameworks.entity.CommentActivity;
+import org.example.frameworks.repository.CommentActivityRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * TODO: Данный класс ведёт почасовую свёртку активности авторов (comment_activity).
+ *  Счётчики меняются в той же транзакции, что и комментарии, а фоновая сверка
+ *  раз в reconcile-interval пересчитывает последние reconcile-window часов по таблице comment
+ *  и исправляет расхождения (например, после каскадного удаления или ручных правок в базе).
+ */
+@Slf4j
+@Component
+public class CommentActivityRollup {
+
+    /**
+     * Допустимая длина запрошенного интервала для каждой детализации.
+     */
+    private static final Map<String, Duration> MAX_RANGE = Map.of(
+            "hour", Duration.ofDays(31),
+            "day", Duration.ofDays(3 * 366));
+
+    private final CommentActivityRepository repository;
+
+    private final TransactionTemplate reconcileTransaction;
+
+    private final Duration reconcileWindow;
+
+    private final Duration reconcileInterval;
+
+    private final ScheduledExecutorService reconciler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "comment-activity-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CommentActivityRollup(CommentActivityRepository repository, PlatformTransactionManager transactionManager,
+                                 @Value("${app.activity.reconcile-interval:1h}") Duration reconcileInterval,
+                                 @Value("${app.activity.reconcile-window:48h}") Duration reconcileWindow) {
+        this.repository = repository;
+        this.reconcileTransaction = new TransactionTemplate(transactionManager);
+        // Расхождения перепроверяются под блокировкой строк счётчиков, снимок всей сверки не нужен
+        this.reconcileTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.reconcileWindow = reconcileWindow;
+        this.reconcileInterval = reconcileInterval;
+    }
+
+    /**
+     * Запуск фоновой сверки, когда приложение готово.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long interval = reconcileInterval.toMillis();
+        reconciler.scheduleWithFixedDelay(this::reconcileQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Начало часа, в который попадает время создания комментария.
+     */
+    public static LocalDateTime bucket(LocalDateTime time) {
+        return time.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    /**
+     * Изменение счётчиков в текущей транзакции.
+     *
+     * @param deltas изменение количества комментариев по (автор, начало часа)
+     */
+    public void add(Map<CommentActivity.Key, Long> deltas) {
+        repository.add(deltas);
+    }
+
+    /**
+     * Изменение счётчика одного часа одного автора в текущей транзакции.
+     */
+    public void add(Integer authorId, LocalDateTime time, long delta) {
+        repository.add(Map.of(new CommentActivity.Key(authorId, bucket(time)), delta));
+    }
+
+    /**
+     * Удаление комментариев одним запросом DELETE ... WHERE и вычитание именно удалённых
+     * комментариев из счётчиков в текущей транзакции.
+     *
+     * @param authorId идентификатор автора (null - все авторы)
+     * @param from начало интервала времени создания
+     * @param to конец интервала, не включая
+     * @return количество удалённых комментариев
+     */
+    public int deleteComments(Integer authorId, LocalDateTime from, LocalDateTime to) {
+        Map<CommentActivity.Key, Long> deltas = new HashMap<>();
+        long deleted = 0;
+        for (Map.Entry<CommentActivity.Key, Long> bucket : repository.deleteComments(authorId, from, to).entrySet()) {
+            deltas.put(bucket.getKey(), -bucket.getValue());
+            deleted += bucket.getValue();
+        }
+        repository.add(deltas);
+        return (int) deleted;
+    }
+
+    /**
+     * Активность автора за интервал [from, to) по часам или по дням.
+     * Читаются только строки свёртки за интервал, без обращения к таблице comment.
+     *
+     * @param authorId идентификатор автора
+     * @param granularity hour или day
+     * @param from начало интервала (null - сутки или 30 дней до to)
+     * @param to конец интервала, не включая (null - текущий момент)
+     * @return количество комментариев по интервалам, без пустых интервалов
+     * @throws ResponseStatusException 400 при неизвестной детализации или слишком длинном интервале
+     */
+    public List<ActivityBucketDto> getActivity(Integer authorId, String granularity,
+                                               LocalDateTime from, LocalDateTime to) {
+        Duration maxRange = MAX_RANGE.get(granularity);
+        if (maxRange == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown granularity: " + granularity);
+        }
+        boolean daily = granularity.equals("day");
+        LocalDateTime until = to != null ? to : LocalDateTime.now();
+        LocalDateTime since = from != null ? from : until.minus(daily ? Duration.ofDays(30) : Duration.ofDays(1));
+        if (!since.isBefore(until) || Duration.between(since, until).compareTo(maxRange) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Interval must be positive and not longer than " + maxRange.toDays() + " days for " + granularity);
+        }
+        LocalDateTime start = daily ? since.truncatedTo(ChronoUnit.DAYS) : bucket(since);
+        List<ActivityBucketDto> hours = repository.findBuckets(authorId, start, until);
+        if (!daily) {
+            return hours;
+        }
+        Map<LocalDateTime, Long> days = new LinkedHashMap<>();
+        for (ActivityBucketDto hour : hours) {
+            days.merge(hour.getBucketStart().truncatedTo(ChronoUnit.DAYS), hour.getCount(), Long::sum);
+        }
+        List<ActivityBucketDto> result = new ArrayList<>(days.size());
+        days.forEach((day, count) -> result.add(new ActivityBucketDto(day, count)));
+        return result;
+    }
+
+    /**
+     * Сверка последних reconcile-window часов с таблицей comment.
+     * Сначала счётчики и комментарии сравниваются без блокировок, затем каждый разошедшийся счётчик
+     * блокируется (SELECT ... FOR UPDATE в порядке первичного ключа, как и при изменении счётчиков)
+     * и пересчитывается по комментариям его часа. Изменения, зафиксированные до блокировки, уже учтены
+     * в обоих числах, а ожидающие её транзакции прибавят свою разницу после сверки,
+     * поэтому на READ COMMITTED сверка не теряет их и не получает ошибок сериализации.
+     *
+     * @return количество исправленных счётчиков
+     */
+    public int reconcile() {
+        LocalDateTime since = bucket(LocalDateTime.now().minus(reconcileWindow));
+        Integer fixed = reconcileTransaction.execute(status -> {
+            Map<CommentActivity.Key, Long> actual = repository.countComments(null, since, Cursors.MAX_TIME);
+            Map<CommentActivity.Key, Long> stored = repository.findCounts(since);
+            Set<CommentActivity.Key> keys = new TreeSet<>(CommentActivity.Key.ORDER);
+            keys.addAll(actual.keySet());
+            keys.addAll(stored.keySet());
+            keys.removeIf(key -> actual.getOrDefault(key, 0L).equals(stored.getOrDefault(key, 0L)));
+            Map<CommentActivity.Key, Long> deltas = new HashMap<>();
+            for (CommentActivity.Key key : keys) {
+                long locked = repository.lockCount(key);
+                long count = repository.countComments(key.getAuthorId(), key.getBucketStart(),
+                        key.getBucketStart().plusHours(1)).getOrDefault(key, 0L);
+                if (count != locked) {
+                    deltas.put(key, count - locked);
+                }
+            }
+            repository.add(deltas);
+            repository.deleteEmpty(since);
+            return deltas.size();
+        });
+        if (fixed != null && fixed > 0) {
+            log.warn("Comment activity reconciliation fixed {} buckets since {}", fixed, since);
+        }
+        return fixed != null ? fixed : 0;
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("Comment activity reconciliation failed, will retry", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        reconciler.shutdownNow();
+    }
+}
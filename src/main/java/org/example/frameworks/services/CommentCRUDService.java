@@ -1,17 +1,50 @@
 package org.example.frameworks.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.frameworks.cache.ReadThroughCache;
+import org.example.frameworks.config.PrimaryReads;
+import org.example.frameworks.dto.ActivityBucketDto;
+import org.example.frameworks.dto.AuthorDto;
+import org.example.frameworks.dto.BatchFailureDto;
+import org.example.frameworks.dto.BatchResultDto;
 import org.example.frameworks.dto.CommentDto;
+import org.example.frameworks.dto.CursorPageDto;
 import org.example.frameworks.entity.Author;
 import org.example.frameworks.entity.Comment;
+import org.example.frameworks.entity.CommentActivity;
+import org.example.frameworks.feed.CommentFeed;
 import org.example.frameworks.repository.AuthorRepository;
 import org.example.frameworks.repository.CommentRepository;
+import org.example.frameworks.search.CommentSearchIndex;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.TreeMap;
 
 
@@ -27,6 +60,26 @@ import java.util.TreeMap;
 @Service
 public class CommentCRUDService implements CRUDService<CommentDto> {
 
+    /**
+     * Размер пакета JDBC при пакетном создании комментариев.
+     * Совпадает с hibernate.jdbc.batch_size в application.yml.
+     */
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Максимальное количество комментариев в одном запросе на пакетное создание.
+     */
+    private static final int MAX_BATCH_ITEMS = 10_000;
+
+    /**
+     * В лог чтений попадает каждый сотый вызов.
+     */
+    private static final LogSampler READ_LOG = new LogSampler(100);
+
+    /**
+     * Поля комментария, которые можно запросить в fields=...
+     */
+    private static final Map<String, FieldSet.Field<CommentDto>> FIELDS = fields();
 
     /**
      * Репозиторий для работы с комментариями в базе данных.
@@ -40,81 +93,556 @@ public class CommentCRUDService implements CRUDService<CommentDto> {
      */
     private final AuthorRepository authorRepository;
 
+    /**
+     * Контекст персистентности, из которого отсоединяются комментарии при выгрузке.
+     */
+    private final EntityManager entityManager;
+
+    /**
+     * Сериализатор JSON для потоковой выгрузки.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Кэш комментариев по идентификатору.
+     */
+    private final ReadThroughCache<CommentDto> commentCache;
+
+    /**
+     * Кэш авторов: автор содержит список своих комментариев,
+     * поэтому при изменении комментария запись автора сбрасывается.
+     */
+    private final ReadThroughCache<AuthorDto> authorCache;
+
+    /**
+     * Счётчики изменений таблиц для ETag списков.
+     */
+    private final CollectionVersions collectionVersions;
+
+    /**
+     * Полнотекстовый индекс по тексту комментариев.
+     */
+    private final CommentSearchIndex searchIndex;
+
+    /**
+     * Лента новых комментариев для подписчиков SSE.
+     */
+    private final CommentFeed commentFeed;
+
+    /**
+     * Почасовая свёртка количества комментариев авторов.
+     */
+    private final CommentActivityRollup activityRollup;
+
     /**
      * Получение комментария по идентификатору.
      * Логирует попытку получения и выбрасывает исключение, если комментарий не найден.
+     * Сначала ищет комментарий в кэше, в базу данных обращается только при промахе.
      *
      * @param id идентификатор комментария
      * @return DTO объект комментария
      */
     @Override
+    @Transactional(readOnly = true)
     public CommentDto getById(Integer id) {
-        log.info("Get vy ID:" + id);
-        Comment comment = commentRepository.findById(id).orElseThrow();
-        return mapToDto(comment);
+        if (log.isDebugEnabled() && READ_LOG.sample()) {
+            log.debug("Get by id {}", id);
+        }
+        // Кэш заполняется только с основной базы: данные отстающей реплики остались бы в нём до конца TTL
+        return commentCache.get(id, key -> PrimaryReads.call(() -> commentRepository.findDtoById(key).orElseThrow()));
     }
 
 
     /**
      * Получение всех комментариев.
-     * Логирует операцию и преобразует все сущности в DTO объекты.
+     * Логирует операцию, строки читаются проекцией сразу в DTO объекты.
      *
      * @return коллекция DTO объектов комментариев
      */
     @Override
+    @Transactional(readOnly = true)
     public Collection<CommentDto> getAll() {
-        log.info("Get all");
-        return commentRepository.findAll()
-                .stream()
-                .map(CommentCRUDService::mapToDto)
-                .toList();
+        if (log.isDebugEnabled() && READ_LOG.sample()) {
+            log.debug("Get all");
+        }
+        return commentRepository.findAllDtos();
+    }
+
+
+    /**
+     * Получение нескольких комментариев по идентификаторам одним запросом с IN (...)
+     * вместо отдельного GET /comment/{id} на каждый. В запрос попадают только запрошенные колонки.
+     * Несуществующие идентификаторы пропускаются, комментарии упорядочены по id.
+     *
+     * @param ids идентификаторы комментариев (не больше Cursors.MAX_LIMIT)
+     * @param fields поля комментария через запятую (null - все)
+     * @return DTO объекты найденных комментариев
+     */
+    @Transactional(readOnly = true)
+    public List<CommentDto> getByIds(Collection<Integer> ids, String fields) {
+        if (ids.size() > Cursors.MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Too many ids in one request: " + ids.size() + " > " + Cursors.MAX_LIMIT);
+        }
+        FieldSet<CommentDto> fieldSet = FieldSet.parse(fields, null, FIELDS);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        if (!fieldSet.isAll()) {
+            return fieldSet.select(entityManager, Comment.class, CommentDto::new,
+                    (cb, root) -> root.get("id").in(ids), null);
+        }
+        List<CommentDto> comments = new ArrayList<>(commentRepository.findDtosByIds(ids));
+        comments.sort(Comparator.comparing(CommentDto::getId));
+        return comments;
+    }
+
+    /**
+     * Получение страницы комментариев по курсору.
+     * Запрашивает на одну запись больше, чтобы понять, есть ли следующая страница.
+     *
+     * @param after курсор, после которого начинается страница (null - с начала)
+     * @param limit размер страницы (ограничивается сервером)
+     * @return страница DTO объектов комментариев и курсор следующей страницы
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<CommentDto> getPage(String after, Integer limit) {
+        int size = Cursors.limit(limit);
+        List<CommentDto> comments = commentRepository.findDtoPage(Cursors.decodeId(after), PageRequest.of(0, size + 1));
+        boolean hasNext = comments.size() > size;
+        List<CommentDto> items = hasNext ? comments.subList(0, size) : comments;
+        String nextCursor = hasNext ? Cursors.encodeId(items.get(items.size() - 1).getId()) : null;
+        return new CursorPageDto<>(items, nextCursor);
+    }
+
+    /**
+     * Получение страницы комментариев за интервал времени [from, to),
+     * упорядоченной по (creation_time, id). Страницы выбираются по индексу,
+     * поэтому стоимость не зависит от глубины пролистывания.
+     *
+     * @param authorId идентификатор автора (null - комментарии всех авторов)
+     * @param from начало интервала (null - без ограничения)
+     * @param to конец интервала, не включая (null - без ограничения)
+     * @param after курсор, после которого начинается страница (null - с начала интервала)
+     * @param limit размер страницы (ограничивается сервером)
+     * @return страница DTO объектов комментариев и курсор следующей страницы
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<CommentDto> getPageByTime(Integer authorId, LocalDateTime from, LocalDateTime to,
+                                                   String after, Integer limit) {
+        int size = Cursors.limit(limit);
+        Cursors.TimePosition position = Cursors.decodeTime(after, from != null ? from : Cursors.MIN_TIME);
+        LocalDateTime until = to != null ? to : Cursors.MAX_TIME;
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<CommentDto> comments = authorId != null
+                ? commentRepository.findDtoPageByAuthorAndTime(authorId, position.time(), position.id(), until, page)
+                : commentRepository.findDtoPageByTime(position.time(), position.id(), until, page);
+        boolean hasNext = comments.size() > size;
+        List<CommentDto> items = hasNext ? comments.subList(0, size) : comments;
+        CommentDto last = hasNext ? items.get(items.size() - 1) : null;
+        String nextCursor = last != null ? Cursors.encodeTime(last.getCreationTime(), last.getId()) : null;
+        return new CursorPageDto<>(items, nextCursor);
+    }
+
+
+    /**
+     * Поиск комментариев, содержащих все слова запроса, по убыванию релевантности
+     * (числа вхождений слов запроса), при равной релевантности - от новых к старым.
+     * Идентификаторы берутся из индекса в памяти, сами комментарии читаются одним запросом на порцию.
+     * Найденные комментарии перепроверяются по тексту, а вместо отброшенных из индекса добираются
+     * следующие кандидаты, пока не наберётся limit подходящих комментариев или кандидаты не закончатся.
+     * Реплика может ещё не получить новый или изменённый комментарий, поэтому отброшенные
+     * кандидаты перечитываются с основной базы, и только по её данным записи удаляются из индекса.
+     *
+     * @param query строка запроса
+     * @param limit сколько комментариев вернуть (ограничивается сервером)
+     * @return найденные DTO объекты комментариев
+     */
+    public List<CommentDto> search(String query, Integer limit) {
+        int size = Cursors.limit(limit);
+        List<CommentDto> result = new ArrayList<>(size);
+        Set<Integer> seen = new HashSet<>();
+        while (result.size() < size) {
+            int wanted = seen.size() + size - result.size();
+            List<Integer> ids = searchIndex.search(query, wanted);
+            List<Integer> candidates = ids.stream().filter(seen::add).toList();
+            if (candidates.isEmpty()) {
+                break;
+            }
+            Map<Integer, CommentDto> found = new HashMap<>();
+            commentRepository.findDtosByIds(candidates).forEach(comment -> found.put(comment.getId(), comment));
+            List<Integer> rejected = candidates.stream()
+                    .filter(id -> !CommentSearchIndex.matches(found.containsKey(id) ? found.get(id).getText() : null, query))
+                    .toList();
+            if (!rejected.isEmpty()) {
+                PrimaryReads.call(() -> commentRepository.findDtosByIds(rejected))
+                        .forEach(comment -> found.put(comment.getId(), comment));
+            }
+            for (Integer id : candidates) {
+                CommentDto comment = found.get(id);
+                if (searchIndex.verify(id, comment != null ? comment.getText() : null, query)) {
+                    result.add(comment);
+                }
+            }
+            if (ids.size() < wanted) {
+                break;
+            }
+        }
+        // Следующие порции ниже по релевантности, но индекс мог измениться между порциями
+        return result.size() > size ? result.subList(0, size) : result;
+    }
+
+    /**
+     * Версия комментария без загрузки самого комментария (для проверки ETag).
+     *
+     * @param id идентификатор комментария
+     * @return версия записи
+     * @throws ResponseStatusException 404, если комментария нет
+     */
+    public Long getVersion(Integer id) {
+        return commentRepository.findVersionById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Comment not found: " + id));
+    }
+
+    /**
+     * Получение страницы комментариев вместе с версией списка для ETag.
+     * Версия и страница читаются в одной read-only транзакции, то есть с одной и той же реплики:
+     * версия, прочитанная с основной базы, могла бы оказаться новее страницы с отстающей реплики.
+     *
+     * @param from начало интервала (null - без ограничения)
+     * @param to конец интервала, не включая (null - без ограничения)
+     * @param after курсор, после которого начинается страница
+     * @param limit размер страницы (ограничивается сервером)
+     * @param notModified проверка версии: true - у клиента уже есть эта версия, страница не читается
+     * @return версия списка и страница (null, если notModified вернула true)
+     */
+    @Transactional(readOnly = true)
+    public CollectionVersions.Versioned<CursorPageDto<CommentDto>> getVersionedPage(LocalDateTime from, LocalDateTime to,
+                                                                                    String after, Integer limit,
+                                                                                    Predicate<String> notModified) {
+        String version = getCollectionVersion();
+        if (notModified.test(version)) {
+            return new CollectionVersions.Versioned<>(version, null);
+        }
+        return new CollectionVersions.Versioned<>(version, from != null || to != null
+                ? getPageByTime(null, from, to, after, limit)
+                : getPage(after, limit));
+    }
+
+    /**
+     * Версия списка комментариев для ETag без чтения самой таблицы comment.
+     *
+     * @return счётчик изменений таблицы comment, например "c40"
+     */
+    @Transactional(readOnly = true)
+    public String getCollectionVersion() {
+        return "c" + collectionVersions.get(CollectionVersions.COMMENTS);
+    }
+
+    /**
+     * Потоковая выгрузка всех комментариев в формате NDJSON.
+     * Комментарии читаются курсором сразу в DTO (идентификатор автора - из внешнего ключа):
+     * сущности и прокси авторов не попадают в контекст персистентности,
+     * поэтому память не зависит от размера таблицы.
+     *
+     * @param out выходной поток ответа
+     */
+    @Transactional(readOnly = true)
+    public void exportNdjson(OutputStream out) throws IOException {
+        long written = NdjsonExporter.write(commentRepository.streamAllDtos(), objectMapper, out);
+        log.info("Exported {} comments", written);
     }
 
 
     /**
      * Создание нового комментария.
      * Проверяет существование автора и устанавливает связь между комментарием и автором.
+     * Счётчик активности автора увеличивается в той же транзакции.
      *
      * @param commentDto данные комментария для создания
      */
     @Override
+    @Transactional
     public void create(CommentDto commentDto) {
         log.info("Create");
         Comment comment = mapToEntity(commentDto);
         Integer authorId = commentDto.getAuthorId();
-        Author author = authorRepository.findById(authorId).orElseThrow();
-        comment.setAuthor(author);
-        commentRepository.save(comment);
+        comment.setAuthor(getAuthorReference(authorId));
+        commentRepository.saveAndFlush(comment); // Время создания проставляется при вставке строки
+        activityRollup.add(authorId, comment.getTime(), 1);
+        bumpVersions();
+        CommentDto created = mapToDto(comment);
+        AfterCommit.run(() -> {
+            authorCache.invalidate(authorId);
+            searchIndex.add(created.getId(), created.getText());
+            commentFeed.publish(created);
+        });
 
     }
 
+    /**
+     * Пакетное создание комментариев.
+     * Все авторы проверяются одним запросом с IN (...), комментарии вставляются
+     * пакетами JDBC по BATCH_SIZE строк. Элементы с несуществующим автором
+     * не прерывают операцию, а попадают в список ошибок.
+     *
+     * @param commentDtos данные комментариев для создания
+     * @return идентификаторы созданных комментариев и ошибки по элементам
+     */
+    @Transactional
+    public BatchResultDto createAll(List<CommentDto> commentDtos) {
+        if (commentDtos.size() > MAX_BATCH_ITEMS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Too many comments in one batch: " + commentDtos.size() + " > " + MAX_BATCH_ITEMS);
+        }
+        long started = System.nanoTime();
+        Set<Integer> authorIds = commentDtos.stream()
+                .map(CommentDto::getAuthorId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Integer> existingAuthorIds = authorIds.isEmpty() ? Set.of() : authorRepository.findExistingIds(authorIds);
+
+        List<CommentDto> created = new ArrayList<>();
+        List<BatchFailureDto> failures = new ArrayList<>();
+        List<Comment> chunk = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < commentDtos.size(); i++) {
+            CommentDto commentDto = commentDtos.get(i);
+            Integer authorId = commentDto.getAuthorId();
+            if (authorId == null || !existingAuthorIds.contains(authorId)) {
+                failures.add(new BatchFailureDto(i, "Author not found: " + authorId));
+                continue;
+            }
+            Comment comment = mapToEntity(commentDto);
+            comment.setId(null);
+            comment.setAuthor(authorRepository.getReferenceById(authorId));
+            chunk.add(comment);
+            if (chunk.size() == BATCH_SIZE) {
+                flushChunk(chunk, created);
+            }
+        }
+        flushChunk(chunk, created);
+        Map<CommentActivity.Key, Long> activity = new HashMap<>();
+        created.forEach(comment -> activity.merge(new CommentActivity.Key(comment.getAuthorId(),
+                CommentActivityRollup.bucket(comment.getCreationTime())), 1L, Long::sum));
+        activityRollup.add(activity);
+        AfterCommit.run(() -> {
+            existingAuthorIds.forEach(authorCache::invalidate);
+            created.forEach(comment -> {
+                searchIndex.add(comment.getId(), comment.getText());
+                commentFeed.publish(comment);
+            });
+        });
+        bumpVersions();
+        List<Integer> createdIds = created.stream().map(CommentDto::getId).toList();
+
+        long millis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        log.info("Batch created {} comments in {} ms ({} rows/sec), {} failed",
+                createdIds.size(), millis, createdIds.size() * 1000L / millis, failures.size());
+        return new BatchResultDto(createdIds, failures);
+    }
+
+    /**
+     * Запись накопленного пакета комментариев одним пакетом JDBC
+     * и очистка контекста персистентности, чтобы он не рос вместе с запросом.
+     */
+    private void flushChunk(List<Comment> chunk, List<CommentDto> created) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        commentRepository.saveAll(chunk);
+        entityManager.flush();
+        chunk.forEach(comment -> created.add(mapToDto(comment)));
+        entityManager.clear();
+        chunk.clear();
+    }
+
     /**
      * Обновление существующего комментария.
      * Проверяет существование автора и обновляет связь между комментарием и автором.
+     * Версия записи увеличивается Hibernate, кэши сбрасываются после фиксации транзакции.
      *
      * @param commentDto данные комментария для обновления
      */
     @Override
+    @Transactional
     public void update(CommentDto commentDto) {
         log.info("Update ");
-        Comment comment = mapToEntity(commentDto);
+        Comment comment = commentRepository.findById(commentDto.getId()).orElseThrow();
         Integer authorId = commentDto.getAuthorId();
-        Author author = authorRepository.findById(authorId).orElseThrow();
-        comment.setAuthor(author);
-        commentRepository.save(comment);
+        Integer previousAuthorId = comment.getAuthor().getId();
+        String previousText = comment.getText();
+        comment.setText(commentDto.getText());
+        comment.setAuthor(getAuthorReference(authorId));
+        if (!previousAuthorId.equals(authorId)) {
+            activityRollup.add(previousAuthorId, comment.getTime(), -1);
+            activityRollup.add(authorId, comment.getTime(), 1);
+        }
+        bumpVersions();
+        AfterCommit.run(() -> {
+            commentCache.invalidate(commentDto.getId());
+            authorCache.invalidate(authorId);
+            authorCache.invalidate(previousAuthorId);
+            searchIndex.update(commentDto.getId(), previousText, commentDto.getText());
+        });
+
+    }
 
+    /**
+     * Частичное обновление комментария одним запросом UPDATE только по переданным полям
+     * (null - поле не меняется). Если передана ожидаемая версия, а в базе данных уже другая,
+     * обновление не выполняется. Прежнее состояние читается с блокировкой строки,
+     * а поисковый индекс, кэши и свёртка активности обновляются по строке после UPDATE.
+     *
+     * @param id идентификатор комментария
+     * @param patch новые значения полей (text, authorId)
+     * @param expectedVersion ожидаемая версия записи (null - любая)
+     * @throws ResponseStatusException 404, если комментария нет; 412, если версия изменилась
+     */
+    @Transactional
+    public void patch(Integer id, CommentDto patch, Long expectedVersion) {
+        if (patch.getText() == null && patch.getAuthorId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nothing to update");
+        }
+        CommentDto previous = commentRepository.findDtoByIdForUpdate(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Comment not found: " + id));
+        if (expectedVersion != null && !expectedVersion.equals(previous.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Comment " + id + " was modified concurrently");
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Comment> update = cb.createCriteriaUpdate(Comment.class);
+        Root<Comment> root = update.from(Comment.class);
+        if (patch.getText() != null) {
+            update.set(root.<String>get("text"), patch.getText());
+        }
+        if (patch.getAuthorId() != null) {
+            update.set(root.<Author>get("author"), getAuthorReference(patch.getAuthorId()));
+        }
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+        update.where(cb.and(cb.equal(root.get("id"), id), cb.equal(root.get("version"), previous.getVersion())));
+        if (entityManager.createQuery(update).executeUpdate() == 0) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Comment " + id + " was modified concurrently");
+        }
+        CommentDto patched = commentRepository.findDtoById(id).orElseThrow();
+        if (!patched.getAuthorId().equals(previous.getAuthorId())) {
+            activityRollup.add(previous.getAuthorId(), previous.getCreationTime(), -1);
+            activityRollup.add(patched.getAuthorId(), patched.getCreationTime(), 1);
+        }
+        bumpVersions();
+        AfterCommit.run(() -> {
+            commentCache.invalidate(id);
+            authorCache.invalidate(previous.getAuthorId());
+            authorCache.invalidate(patched.getAuthorId());
+            if (!Objects.equals(previous.getText(), patched.getText())) {
+                searchIndex.update(id, previous.getText(), patched.getText());
+            }
+        });
     }
 
     /**
      * Удаление комментария по идентификатору.
      * Логирует операцию удаления.
+     * Автор, текст и время комментария читаются одной проекцией для сброса кэшей,
+     * поискового индекса и счётчика активности.
      *
      * @param id идентификатор комментария для удаления
      */
     @Override
+    @Transactional
     public void delete(Integer id) {
-        log.info("Delete " + id);
-        commentRepository.deleteById(id);
+        log.info("Delete {}", id);
+        CommentDto comment = commentRepository.findDtoById(id).orElse(null);
+        commentRepository.deleteAllByIdInBatch(List.of(id));
+        if (comment == null) {
+            return;
+        }
+        activityRollup.add(comment.getAuthorId(), comment.getCreationTime(), -1);
+        bumpVersions();
+        AfterCommit.run(() -> {
+            commentCache.invalidate(id);
+            authorCache.invalidate(comment.getAuthorId());
+            searchIndex.remove(id, comment.getText());
+        });
+    }
+
+    /**
+     * Удаление комментариев автора и/или за интервал времени [from, to)
+     * одним запросом DELETE ... WHERE по индексу, без загрузки комментариев.
+     * Удалённые комментарии пропадают из поиска при первом же попадании в результаты.
+     *
+     * @param authorId идентификатор автора (null - комментарии всех авторов)
+     * @param from начало интервала (null - без ограничения)
+     * @param to конец интервала, не включая (null - без ограничения)
+     * @return количество удалённых комментариев
+     */
+    @Transactional
+    public int deleteAll(Integer authorId, LocalDateTime from, LocalDateTime to) {
+        if (authorId == null && from == null && to == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "authorId, from or to is required");
+        }
+        LocalDateTime since = from != null ? from : Cursors.MIN_TIME;
+        LocalDateTime until = to != null ? to : Cursors.MAX_TIME;
+        int deleted = activityRollup.deleteComments(authorId, since, until);
+        bumpVersions();
+        AfterCommit.run(() -> {
+            commentCache.invalidateAll();
+            if (authorId != null) {
+                authorCache.invalidate(authorId);
+            } else {
+                authorCache.invalidateAll();
+            }
+        });
+        log.info("Deleted {} comments (author {}, from {}, to {})", deleted, authorId, from, to);
+        return deleted;
+    }
+
+    /**
+     * Количество комментариев автора по часам или дням из свёртки comment_activity.
+     *
+     * @param authorId идентификатор автора
+     * @param granularity hour или day
+     * @param from начало интервала (null - по умолчанию для детализации)
+     * @param to конец интервала, не включая (null - текущий момент)
+     * @return количество комментариев по интервалам
+     */
+    @Transactional(readOnly = true)
+    public List<ActivityBucketDto> getActivity(Integer authorId, String granularity,
+                                               LocalDateTime from, LocalDateTime to) {
+        return activityRollup.getActivity(authorId, granularity, from, to);
+    }
+
+    /**
+     * Отметка об изменении комментариев.
+     * Список авторов тоже меняется, так как автор содержит свои комментарии.
+     */
+    private void bumpVersions() {
+        collectionVersions.bump(CollectionVersions.COMMENTS);
+        collectionVersions.bump(CollectionVersions.AUTHORS);
+    }
+
+    /**
+     * Получение ссылки на автора без загрузки его строки из базы данных.
+     * Существование автора проверяется по кэшу, а при промахе - запросом exists.
+     *
+     * @param authorId идентификатор автора
+     * @return ссылка (прокси) на автора для установки связи
+     * @throws ResponseStatusException 400, если автора нет
+     */
+    private Author getAuthorReference(Integer authorId) {
+        if (authorId == null || !(authorCache.contains(authorId) || authorRepository.existsById(authorId))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Author not found: " + authorId);
+        }
+        return authorRepository.getReferenceById(authorId);
+    }
+
+    private static Map<String, FieldSet.Field<CommentDto>> fields() {
+        Map<String, FieldSet.Field<CommentDto>> fields = new LinkedHashMap<>();
+        fields.put("id", new FieldSet.Field<>("id", (dto, value) -> dto.setId((Integer) value)));
+        fields.put("text", new FieldSet.Field<>("text", (dto, value) -> dto.setText((String) value)));
+        fields.put("authorId", new FieldSet.Field<>("author.id", (dto, value) -> dto.setAuthorId((Integer) value)));
+        fields.put("version", new FieldSet.Field<>("version", (dto, value) -> dto.setVersion((Long) value)));
+        fields.put("creationTime", new FieldSet.Field<>("time", (dto, value) -> dto.setCreationTime((LocalDateTime) value)));
+        return fields;
     }
 
     /**
@@ -129,6 +657,8 @@ public class CommentCRUDService implements CRUDService<CommentDto> {
         commentDto.setId(comment.getId());
         commentDto.setText(comment.getText());
         commentDto.setAuthorId(comment.getAuthor().getId());
+        commentDto.setVersion(comment.getVersion());
+        commentDto.setCreationTime(comment.getTime());
         return commentDto;
 
     }
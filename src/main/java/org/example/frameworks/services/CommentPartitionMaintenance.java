@@ -0,0 +1,202 @@
+package org.example.frameworks.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.frameworks.cache.ReadThroughCache;
+import org.example.frameworks.dto.AuthorDto;
+import org.example.frameworks.dto.CommentDto;
+import org.example.frameworks.repository.CommentPartitionRepository;
+import org.example.frameworks.search.CommentSearchIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * TODO: Данный класс обслуживает помесячные секции таблицы comment.
+ *  Раз в interval создаются секции текущего месяца и months-ahead следующих,
+ *  а секции месяцев старше retention-months отсоединяются (expired=detach)
+ *  или удаляются (expired=drop) целиком вместо построчного DELETE.
+ *  Строки месяцев без секции (например, загруженные задним числом), попавшие в comment_default,
+ *  переносятся в секции своих месяцев, их количество публикуется метрикой comment.partitions.default_rows.
+ *  Свёртка comment_activity за удалённые месяцы сохраняется.
+ *  На несекционированной таблице (не PostgreSQL) ничего не делает.
+ */
+@Slf4j
+@Component
+public class CommentPartitionMaintenance {
+
+    private final CommentPartitionRepository repository;
+
+    private final TransactionTemplate transaction;
+
+    private final CollectionVersions collectionVersions;
+
+    private final ReadThroughCache<CommentDto> commentCache;
+
+    private final ReadThroughCache<AuthorDto> authorCache;
+
+    private final CommentSearchIndex searchIndex;
+
+    private final int monthsAhead;
+
+    private final int retentionMonths;
+
+    private final boolean drop;
+
+    private final Duration lockTimeout;
+
+    private final AtomicLong defaultRows = new AtomicLong();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "comment-partition-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CommentPartitionMaintenance(CommentPartitionRepository repository, PlatformTransactionManager transactionManager,
+                                       CollectionVersions collectionVersions,
+                                       ReadThroughCache<CommentDto> commentCache, ReadThroughCache<AuthorDto> authorCache,
+                                       CommentSearchIndex searchIndex,
+                                       @Value("${app.partitions.interval:12h}") Duration interval,
+                                       @Value("${app.partitions.months-ahead:3}") int monthsAhead,
+                                       @Value("${app.partitions.retention-months:0}") int retentionMonths,
+                                       @Value("${app.partitions.expired:detach}") String expired,
+                                       @Value("${app.partitions.lock-timeout:5s}") Duration lockTimeout,
+                                       MeterRegistry registry) {
+        this.repository = repository;
+        // Секции меняются в собственных транзакциях и при вызове из транзакции загрузки
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.collectionVersions = collectionVersions;
+        this.commentCache = commentCache;
+        this.authorCache = authorCache;
+        this.searchIndex = searchIndex;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.lockTimeout = lockTimeout;
+        this.drop = switch (expired.toLowerCase(Locale.ROOT)) {
+            case "detach" -> false;
+            case "drop" -> true;
+            default -> throw new IllegalArgumentException("app.partitions.expired must be detach or drop: " + expired);
+        };
+        Gauge.builder("comment.partitions.default_rows", defaultRows, AtomicLong::get)
+                .description("Строки comment_default, не перенесённые в помесячные секции")
+                .register(registry);
+        scheduler.scheduleWithFixedDelay(this::maintainQuietly, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Создание недостающих секций и отсоединение или удаление устаревших.
+     * Строки из comment_default переносятся в секции своих месяцев.
+     * Каждая секция меняется в своей короткой транзакции с lock_timeout:
+     * ошибка одной секции не мешает остальным и повторяется при следующем запуске.
+     *
+     * @param now текущий месяц
+     * @return количество отсоединённых или удалённых секций
+     */
+    public int maintain(YearMonth now) {
+        if (!repository.isPartitioned()) {
+            return 0;
+        }
+        List<YearMonth> months = new ArrayList<>();
+        long stray = repository.countDefaultRows();
+        if (stray > 0) {
+            months.addAll(repository.findDefaultMonths());
+            log.warn("{} rows in comment_default for months {}, moving them to monthly partitions", stray, months);
+        }
+        for (int i = 0; i <= monthsAhead; i++) {
+            months.add(now.plusMonths(i));
+        }
+        createPartitions(months);
+        defaultRows.set(stray == 0 ? 0 : repository.countDefaultRows());
+        if (retentionMonths <= 0) {
+            return 0;
+        }
+        List<String> partitions = repository.findPartitions();
+        YearMonth oldestKept = now.minusMonths(retentionMonths);
+        List<String> expired = new ArrayList<>();
+        for (String partition : partitions) {
+            Optional<YearMonth> month = CommentPartitionRepository.monthOf(partition);
+            if (month.isPresent() && month.get().isBefore(oldestKept)) {
+                boolean changed = change(() -> {
+                    if (drop) {
+                        repository.dropPartition(partition);
+                    } else {
+                        repository.detachPartition(partition);
+                    }
+                    collectionVersions.bump(CollectionVersions.COMMENTS);
+                    collectionVersions.bump(CollectionVersions.AUTHORS);
+                }, (drop ? "drop " : "detach ") + partition);
+                if (changed) {
+                    expired.add(partition);
+                }
+            }
+        }
+        if (!expired.isEmpty()) {
+            log.info("Comment partitions older than {} {}: {}", oldestKept, drop ? "dropped" : "detached", expired);
+            commentCache.invalidateAll();
+            authorCache.invalidateAll();
+            searchIndex.requestRebuild();
+        }
+        return expired.size();
+    }
+
+    /**
+     * Создание секций месяцев, которых ещё нет, с переносом их строк из comment_default.
+     * Вызывается загрузкой комментариев задним числом до вставки строк.
+     *
+     * @param months месяцы
+     */
+    public void createPartitions(Collection<YearMonth> months) {
+        if (!repository.isPartitioned()) {
+            return;
+        }
+        List<String> partitions = repository.findPartitions();
+        months.stream().distinct().sorted()
+                .filter(month -> !partitions.contains(CommentPartitionRepository.partitionName(month)))
+                .forEach(month -> change(() -> repository.createPartition(month), "create partition for " + month));
+    }
+
+    private boolean change(Runnable ddl, String description) {
+        try {
+            transaction.executeWithoutResult(status -> {
+                repository.setLockTimeout(lockTimeout);
+                ddl.run();
+            });
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Comment partition maintenance could not {}, will retry", description, e);
+            return false;
+        }
+    }
+
+    private void maintainQuietly() {
+        try {
+            maintain(YearMonth.now());
+        } catch (RuntimeException e) {
+            log.warn("Comment partition maintenance failed, will retry", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,275 @@
+package org.example.frameworks.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.frameworks.cache.ReadThroughCache;
+import org.example.frameworks.dto.AuthorDto;
+import org.example.frameworks.dto.CommentDto;
+import org.example.frameworks.dto.ImportResultDto;
+import org.example.frameworks.search.CommentSearchIndex;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+
+/**
+ * TODO: Данный класс представляет собой массовую загрузку и выгрузку авторов и комментариев
+ *  в CSV через COPY драйвера PostgreSQL. Тело запроса и ответа передаётся потоком,
+ *  без сборки файла в памяти. Загружаемые строки сначала копируются во временную таблицу,
+ *  проверяются одним запросом (автор существует, длина текста) и переносятся
+ *  в author/comment одним INSERT ... SELECT. Секции comment для месяцев загружаемых
+ *  комментариев создаются до вставки. Кэши, рейтинг, поиск и свёртка активности
+ *  обновляются целиком, лента новых комментариев массовую загрузку не получает.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CsvCopyService {
+
+    /**
+     * Шаг последовательностей author_seq и comment_seq (allocationSize в сущностях):
+     * каждое значение nextval резервирует блок из ID_BLOCK идентификаторов.
+     */
+    private static final int ID_BLOCK = 50;
+
+    /**
+     * Максимальная длина текстовых колонок (varchar(255)).
+     */
+    private static final int MAX_TEXT = 255;
+
+    /**
+     * Сколько номеров отклонённых строк возвращать в ответе.
+     */
+    private static final int REJECTED_SAMPLE = 100;
+
+    private static final String CSV = "WITH (FORMAT csv, HEADER true)";
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ReadThroughCache<AuthorDto> authorCache;
+
+    private final ReadThroughCache<CommentDto> commentCache;
+
+    private final CollectionVersions collectionVersions;
+
+    private final AuthorLeaderboard leaderboard;
+
+    private final CommentSearchIndex searchIndex;
+
+    private final CommentPartitionMaintenance partitionMaintenance;
+
+    /**
+     * Проверка, что база данных - PostgreSQL, до начала потоковой передачи ответа.
+     */
+    public void requireSupported() {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            copyManager(connection);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot inspect JDBC connection", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Выгрузка всех авторов в CSV: id, first_name, last_name, rating, version.
+     *
+     * @param out выходной поток ответа
+     */
+    @Transactional(readOnly = true)
+    public void exportAuthors(OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        long rows = copyOut("COPY (SELECT id, first_name, last_name, rating, version FROM author) TO STDOUT " + CSV, out);
+        log.info("Exported {} authors as CSV ({} rows/sec)", rows, rowsPerSecond(rows, started));
+    }
+
+    /**
+     * Выгрузка всех комментариев в CSV: id, author_id, text, creation_time, version.
+     *
+     * @param out выходной поток ответа
+     */
+    @Transactional(readOnly = true)
+    public void exportComments(OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        long rows = copyOut("COPY (SELECT id, author_id, text, creation_time, version FROM comment) TO STDOUT " + CSV, out);
+        log.info("Exported {} comments as CSV ({} rows/sec)", rows, rowsPerSecond(rows, started));
+    }
+
+    /**
+     * Загрузка авторов из CSV с колонками id, first_name, last_name, rating (первая строка - заголовок).
+     * Авторы с id обновляются или вставляются с этим id (при повторе id побеждает последняя строка,
+     * предыдущие считаются отклонёнными),
+     * авторы без id получают новые идентификаторы. Строки со слишком длинными именами отклоняются.
+     *
+     * @param in CSV-файл
+     * @return количество загруженных и отклонённых строк и скорость загрузки
+     */
+    @Transactional
+    public ImportResultDto importAuthors(InputStream in) throws IOException {
+        requireSupported();
+        long started = System.nanoTime();
+        jdbcTemplate.execute("CREATE TEMP TABLE author_staging (line bigint GENERATED ALWAYS AS IDENTITY, "
+                + "id integer, first_name text, last_name text, rating bigint) ON COMMIT DROP");
+        long staged = copyIn("COPY author_staging (id, first_name, last_name, rating) FROM STDIN " + CSV, in);
+        String valid = validAuthor("");
+
+        long upserted = jdbcTemplate.update("INSERT INTO author (id, first_name, last_name, rating, version) "
+                + "SELECT DISTINCT ON (id) id, first_name, last_name, rating, 0 FROM author_staging "
+                + "WHERE id IS NOT NULL AND " + valid + " ORDER BY id, line DESC "
+                + "ON CONFLICT (id) DO UPDATE SET first_name = excluded.first_name, last_name = excluded.last_name, "
+                + "rating = excluded.rating, version = author.version + 1");
+        // Явные id из файла не должны совпасть с блоками последовательности, в том числе выданными ниже этой же загрузке
+        jdbcTemplate.queryForList("SELECT setval('author_seq', m.max_id + 1) FROM (SELECT max(id) AS max_id FROM author) m "
+                + "WHERE m.max_id >= (SELECT last_value FROM author_seq)");
+        long withoutId = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM author_staging WHERE id IS NULL AND " + valid, Long.class);
+        long inserted = withoutId == 0 ? 0 : jdbcTemplate.update("INSERT INTO author (id, first_name, last_name, rating, version) "
+                + "SELECT (b.base + v.rn % " + ID_BLOCK + ")::integer, v.first_name, v.last_name, v.rating, 0 "
+                + "FROM (SELECT row_number() OVER (ORDER BY line) - 1 AS rn, * FROM author_staging "
+                + "WHERE id IS NULL AND " + valid + ") v "
+                + "JOIN (SELECT row_number() OVER () - 1 AS block, nextval('author_seq') AS base "
+                + "FROM generate_series(1, ?)) b ON b.block = v.rn / " + ID_BLOCK, blocks(withoutId));
+
+        long imported = upserted + inserted;
+        // Отклонены невалидные строки и повторы id, которые заменила более поздняя строка файла
+        long rejected = staged - imported;
+        List<Long> rejectedLines = rejected == 0 ? List.of() : jdbcTemplate.queryForList(
+                "SELECT s.line FROM author_staging s WHERE NOT (" + validAuthor("s.") + ") OR s.id IS NOT NULL AND EXISTS "
+                        + "(SELECT 1 FROM author_staging d WHERE d.id = s.id AND d.line > s.line AND " + validAuthor("d.") + ") "
+                        + "ORDER BY s.line LIMIT " + REJECTED_SAMPLE, Long.class);
+        collectionVersions.bump(CollectionVersions.AUTHORS);
+        AfterCommit.run(() -> {
+            authorCache.invalidateAll();
+            leaderboard.invalidate();
+        });
+        return result("authors", staged, imported, rejected, rejectedLines, started);
+    }
+
+    /**
+     * Загрузка комментариев из CSV с колонками author_id, text, creation_time (первая строка - заголовок).
+     * Комментарии получают новые идентификаторы блоками последовательности comment_seq.
+     * Строки с несуществующим автором или слишком длинным текстом отклоняются одним запросом.
+     *
+     * @param in CSV-файл
+     * @return количество загруженных и отклонённых строк и скорость загрузки
+     */
+    @Transactional
+    public ImportResultDto importComments(InputStream in) throws IOException {
+        requireSupported();
+        long started = System.nanoTime();
+        jdbcTemplate.execute("CREATE TEMP TABLE comment_staging (line bigint GENERATED ALWAYS AS IDENTITY, "
+                + "author_id integer, text text, creation_time timestamp) ON COMMIT DROP");
+        long staged = copyIn("COPY comment_staging (author_id, text, creation_time) FROM STDIN " + CSV, in);
+        jdbcTemplate.execute("CREATE TEMP TABLE comment_valid ON COMMIT DROP AS "
+                + "SELECT row_number() OVER (ORDER BY s.line) - 1 AS rn, s.author_id, s.text, "
+                + "coalesce(s.creation_time, localtimestamp) AS creation_time "
+                + "FROM comment_staging s JOIN author a ON a.id = s.author_id "
+                + "WHERE coalesce(length(s.text), 0) <= " + MAX_TEXT);
+        long valid = jdbcTemplate.queryForObject("SELECT count(*) FROM comment_valid", Long.class);
+        // Комментарии задним числом не должны оседать в comment_default
+        partitionMaintenance.createPartitions(jdbcTemplate.queryForList(
+                "SELECT DISTINCT date_trunc('month', creation_time)::date FROM comment_valid", LocalDate.class)
+                .stream().map(YearMonth::from).toList());
+
+        long imported = valid == 0 ? 0 : jdbcTemplate.update("INSERT INTO comment (id, author_id, text, creation_time, version) "
+                + "SELECT (b.base + v.rn % " + ID_BLOCK + ")::integer, v.author_id, v.text, v.creation_time, 0 "
+                + "FROM comment_valid v "
+                + "JOIN (SELECT row_number() OVER () - 1 AS block, nextval('comment_seq') AS base "
+                + "FROM generate_series(1, ?)) b ON b.block = v.rn / " + ID_BLOCK, blocks(valid));
+        jdbcTemplate.update("INSERT INTO comment_activity (author_id, bucket_start, comment_count) "
+                + "SELECT author_id, date_trunc('hour', creation_time), count(*) FROM comment_valid "
+                + "GROUP BY author_id, date_trunc('hour', creation_time) "
+                + "ON CONFLICT (author_id, bucket_start) "
+                + "DO UPDATE SET comment_count = comment_activity.comment_count + excluded.comment_count");
+
+        long rejected = staged - imported;
+        List<Long> rejectedLines = rejected == 0 ? List.of() : jdbcTemplate.queryForList(
+                "SELECT s.line FROM comment_staging s WHERE s.author_id IS NULL "
+                        + "OR coalesce(length(s.text), 0) > " + MAX_TEXT + " "
+                        + "OR NOT EXISTS (SELECT 1 FROM author a WHERE a.id = s.author_id) "
+                        + "ORDER BY s.line LIMIT " + REJECTED_SAMPLE, Long.class);
+        collectionVersions.bump(CollectionVersions.COMMENTS);
+        collectionVersions.bump(CollectionVersions.AUTHORS);
+        AfterCommit.run(() -> {
+            commentCache.invalidateAll();
+            authorCache.invalidateAll();
+            searchIndex.requestRebuild();
+        });
+        return result("comments", staged, imported, rejected, rejectedLines, started);
+    }
+
+    private long copyIn(String sql, InputStream in) throws IOException {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return copyManager(connection).copyIn(sql, in);
+        } catch (SQLException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid CSV: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private long copyOut(String sql, OutputStream out) throws IOException {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return copyManager(connection).copyOut(sql, out);
+        } catch (SQLException e) {
+            throw new IllegalStateException("COPY TO STDOUT failed", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private static CopyManager copyManager(Connection connection) throws SQLException {
+        if (!connection.isWrapperFor(BaseConnection.class)) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, "CSV import/export requires PostgreSQL");
+        }
+        return new CopyManager(connection.unwrap(BaseConnection.class));
+    }
+
+    /**
+     * Условие допустимой строки author_staging (длина имён).
+     *
+     * @param alias псевдоним таблицы с точкой или пустая строка
+     */
+    private static String validAuthor(String alias) {
+        return "coalesce(length(" + alias + "first_name), 0) <= " + MAX_TEXT
+                + " AND coalesce(length(" + alias + "last_name), 0) <= " + MAX_TEXT;
+    }
+
+    private static long blocks(long rows) {
+        return (rows + ID_BLOCK - 1) / ID_BLOCK;
+    }
+
+    private static long rowsPerSecond(long rows, long started) {
+        long millis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        return rows * 1000 / millis;
+    }
+
+    private static ImportResultDto result(String table, long staged, long imported, long rejected,
+                                          List<Long> rejectedLines, long started) {
+        long millis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        long rowsPerSecond = staged * 1000 / millis;
+        log.info("Imported {} {} from CSV in {} ms ({} rows/sec), {} rejected",
+                imported, table, millis, rowsPerSecond, rejected);
+        return new ImportResultDto(imported, rejected, rejectedLines, millis, rowsPerSecond);
+    }
+}
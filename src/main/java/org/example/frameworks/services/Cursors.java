@@ -0,0 +1,136 @@
+package org.example.frameworks.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+
+/**
+ * TODO: Вспомогательный класс для курсорной (keyset) пагинации.
+ *  Кодирует позицию последнего элемента страницы в непрозрачную строку
+ *  и ограничивает размер страницы на стороне сервера.
+ */
+public final class Cursors {
+
+    /**
+     * Размер страницы, если клиент его не указал.
+     */
+    public static final int DEFAULT_LIMIT = 50;
+
+    /**
+     * Максимальный размер страницы, разрешённый сервером.
+     */
+    public static final int MAX_LIMIT = 500;
+
+    /**
+     * Нижняя граница времени, если клиент не указал from.
+     */
+    public static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    /**
+     * Верхняя граница времени, если клиент не указал to.
+     */
+    public static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private Cursors() {
+    }
+
+    /**
+     * Позиция в выборке, упорядоченной по (creation_time, id).
+     *
+     * @param time время создания последнего элемента страницы
+     * @param id идентификатор последнего элемента страницы
+     */
+    public record TimePosition(LocalDateTime time, Integer id) {
+    }
+
+    /**
+     * Приведение запрошенного размера страницы к допустимому диапазону.
+     *
+     * @param limit размер страницы из запроса (может быть null)
+     * @return размер страницы от 1 до MAX_LIMIT
+     */
+    public static int limit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Кодирование идентификатора последнего элемента страницы в курсор.
+     *
+     * @param id идентификатор последнего элемента
+     * @return непрозрачный курсор
+     */
+    public static String encodeId(Integer id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("id:" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Декодирование курсора в идентификатор, после которого начинается страница.
+     * Пустой курсор означает начало таблицы.
+     *
+     * @param cursor курсор из запроса (может быть null)
+     * @return идентификатор, после которого нужно продолжить выборку
+     */
+    public static Integer decodeId(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String raw = decode(cursor);
+            if (!raw.startsWith("id:")) {
+                throw new IllegalArgumentException(raw);
+            }
+            return Integer.valueOf(raw.substring(3));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Кодирование позиции (creation_time, id) последнего элемента страницы в курсор.
+     *
+     * @param time время создания последнего элемента
+     * @param id идентификатор последнего элемента
+     * @return непрозрачный курсор
+     */
+    public static String encodeTime(LocalDateTime time, Integer id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("t:" + time + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Декодирование курсора в позицию (creation_time, id), после которой начинается страница.
+     * Пустой курсор означает начало интервала from.
+     *
+     * @param cursor курсор из запроса (может быть null)
+     * @param from начало интервала времени
+     * @return позиция, после которой нужно продолжить выборку
+     */
+    public static TimePosition decodeTime(String cursor, LocalDateTime from) {
+        if (cursor == null || cursor.isBlank()) {
+            return new TimePosition(from, 0);
+        }
+        try {
+            String raw = decode(cursor);
+            int separator = raw.indexOf('|');
+            if (!raw.startsWith("t:") || separator < 0) {
+                throw new IllegalArgumentException(raw);
+            }
+            return new TimePosition(LocalDateTime.parse(raw.substring(2, separator)),
+                    Integer.valueOf(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+        }
+    }
+
+    private static String decode(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,148 @@
+package org.example.frameworks.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+
+/**
+ * TODO: Вспомогательный класс для частичных ответов (fields=..., include=...).
+ *  Запрошенные поля DTO превращаются в список колонок SELECT, поэтому незапрошенные
+ *  колонки и связи не читаются из базы данных, а не обрезаются при сериализации.
+ *  Идентификатор выбирается всегда.
+ *
+ * @param <D> тип DTO
+ */
+public final class FieldSet<D> {
+
+    /**
+     * Поле DTO: путь к атрибуту сущности (null - связь, которая читается отдельным запросом)
+     * и запись значения в DTO.
+     */
+    public record Field<D>(String path, BiConsumer<D, Object> setter) {
+    }
+
+    private final Map<String, Field<D>> selected;
+
+    private final boolean all;
+
+    private FieldSet(Map<String, Field<D>> selected, boolean all) {
+        this.selected = selected;
+        this.all = all;
+    }
+
+    /**
+     * Разбор параметров fields и include.
+     * Без обоих параметров выбираются все поля и связи, как в полном ответе.
+     *
+     * @param fields поля через запятую (null - все колонки)
+     * @param include связи через запятую, дополнительно к fields
+     * @param available поля DTO по именам, первым должен идти id
+     * @throws ResponseStatusException 400, если запрошено неизвестное поле
+     */
+    public static <D> FieldSet<D> parse(String fields, String include, Map<String, Field<D>> available) {
+        if (fields == null && include == null) {
+            return new FieldSet<>(available, true);
+        }
+        Map<String, Field<D>> selected = new LinkedHashMap<>();
+        available.forEach((name, field) -> {
+            if (name.equals("id") || fields == null && field.path() != null) {
+                selected.put(name, field);
+            }
+        });
+        addAll(selected, fields, available);
+        addAll(selected, include, available);
+        return new FieldSet<>(selected, false);
+    }
+
+    private static <D> void addAll(Map<String, Field<D>> selected, String names, Map<String, Field<D>> available) {
+        if (names == null) {
+            return;
+        }
+        for (String name : names.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            Field<D> field = available.get(trimmed);
+            if (field == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field: " + trimmed);
+            }
+            selected.put(trimmed, field);
+        }
+    }
+
+    /**
+     * Полный ответ (без fields и include): можно использовать обычные проекции и кэши.
+     */
+    public boolean isAll() {
+        return all;
+    }
+
+    public boolean contains(String name) {
+        return selected.containsKey(name);
+    }
+
+    /**
+     * Выборка только запрошенных колонок, упорядоченная по id.
+     *
+     * @param entityManager контекст персистентности
+     * @param entityClass класс сущности
+     * @param factory создание пустого DTO
+     * @param where условие выборки
+     * @param maxResults максимальное количество строк (null - без ограничения)
+     * @return DTO, в которых заполнены только запрошенные поля
+     */
+    public <E> List<D> select(EntityManager entityManager, Class<E> entityClass, Supplier<D> factory,
+                              BiFunction<CriteriaBuilder, Root<E>, Predicate> where, Integer maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<E> root = query.from(entityClass);
+        List<Map.Entry<String, Field<D>>> columns = selected.entrySet().stream()
+                .filter(entry -> entry.getValue().path() != null)
+                .toList();
+        List<Selection<?>> selections = new ArrayList<>(columns.size());
+        for (Map.Entry<String, Field<D>> column : columns) {
+            selections.add(path(root, column.getValue().path()).alias(column.getKey()));
+        }
+        query.multiselect(selections)
+                .where(where.apply(cb, root))
+                .orderBy(cb.asc(root.get("id")));
+        TypedQuery<Tuple> typed = entityManager.createQuery(query);
+        if (maxResults != null) {
+            typed.setMaxResults(maxResults);
+        }
+        List<Tuple> rows = typed.getResultList();
+        List<D> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            D dto = factory.get();
+            columns.forEach(column -> column.getValue().setter().accept(dto, row.get(column.getKey())));
+            result.add(dto);
+        }
+        return result;
+    }
+
+    private static Path<?> path(Root<?> root, String path) {
+        Path<?> result = root;
+        for (String attribute : path.split("\\.")) {
+            result = result.get(attribute);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.frameworks.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * TODO: Вспомогательный класс для выборочного логирования частых операций чтения:
+ *  в лог попадает только каждый N-й вызов, остальные не формируют сообщение вовсе.
+ */
+final class LogSampler {
+
+    private final int every;
+
+    private final AtomicLong calls = new AtomicLong();
+
+    LogSampler(int every) {
+        this.every = every;
+    }
+
+    /**
+     * @return true для каждого every-го вызова
+     */
+    boolean sample() {
+        return calls.getAndIncrement() % every == 0;
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.frameworks.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+
+/**
+ * TODO: Вспомогательный класс для потоковой выгрузки сущностей в формате NDJSON
+ *  (один JSON-объект на строку). Каждая сущность отсоединяется от контекста
+ *  персистентности сразу после записи, поэтому расход памяти не зависит от размера таблицы.
+ *  Связанные сущности-прокси так не отсоединяются, поэтому таблицы со связями
+ *  выгружаются проекцией сразу в DTO.
+ */
+final class NdjsonExporter {
+
+    /**
+     * Через сколько строк сбрасывать буфер в сокет клиента.
+     */
+    private static final int FLUSH_EVERY = 500;
+
+    private NdjsonExporter() {
+    }
+
+    /**
+     * Запись потока сущностей в выходной поток.
+     * Если клиент отключился, запись падает с IOException, поток закрывается
+     * и курсор в базе данных освобождается вместе с транзакцией.
+     *
+     * @param rows поток сущностей из репозитория
+     * @param toDto преобразование сущности в DTO
+     * @param entityManager контекст персистентности, из которого отсоединяются записанные сущности
+     * @param objectMapper сериализатор JSON
+     * @param out выходной поток ответа
+     * @return количество записанных строк
+     */
+    static <E, D> long write(Stream<E> rows, Function<E, D> toDto, EntityManager entityManager,
+                             ObjectMapper objectMapper, OutputStream out) throws IOException {
+        return write(rows.map(entity -> {
+            D dto = toDto.apply(entity);
+            entityManager.detach(entity);
+            return dto;
+        }), objectMapper, out);
+    }
+
+    /**
+     * Запись потока DTO (проекции запроса) в выходной поток.
+     *
+     * @param rows поток DTO из репозитория
+     * @param objectMapper сериализатор JSON
+     * @param out выходной поток ответа
+     * @return количество записанных строк
+     */
+    static long write(Stream<?> rows, ObjectMapper objectMapper, OutputStream out) throws IOException {
+        long written = 0;
+        try (rows; JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            Iterator<?> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(iterator.next());
+                generator.writeRaw('\n');
+                if (++written % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        return written;
+    }
+}
@@ -0,0 +1,241 @@
+package org.example.frameworks.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.frameworks.cache.ReadThroughCache;
+import org.example.frameworks.config.PrimaryReads;
+import org.example.frameworks.dto.AuthorDto;
+import org.example.frameworks.repository.AuthorRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * TODO: Данный класс накапливает изменения рейтинга авторов в памяти и периодически
+ *  записывает их пакетом UPDATE author SET rating = rating + ?.
+ *  Увеличение рейтинга не блокирует строку автора и не открывает транзакцию:
+ *  дельта добавляется к сумме автора атомарным ConcurrentHashMap.merge.
+ *  При записи из суммы вычитается ровно записанная дельта, поэтому увеличения,
+ *  пришедшие во время записи, остаются до следующего раза, а автор с нулевой суммой
+ *  удаляется из карты. Записываемые дельты до фиксации транзакции лежат в отдельной карте
+ *  и по-прежнему учитываются в pending. При ошибке записи дельты возвращаются, при остановке
+ *  приложения записывается остаток. Запись увеличивает version строки, как и любое изменение автора.
+ */
+@Slf4j
+@Component
+public class RatingAccumulator {
+
+    private static final String INCREMENT_SQL =
+            "update author set rating = coalesce(rating, 0) + ?, version = version + 1 where id = ?";
+
+    /**
+     * Сколько авторов перечитывать одним запросом для обновления рейтинга в памяти.
+     */
+    private static final int IN_CHUNK = 1000;
+
+    private final AuthorRepository repository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transaction;
+
+    private final ReadThroughCache<AuthorDto> authorCache;
+
+    private final CollectionVersions collectionVersions;
+
+    private final AuthorLeaderboard leaderboard;
+
+    private final Map<Integer, Long> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Дельты, которые записываются сейчас: видны в pending до фиксации транзакции записи.
+     */
+    private final Map<Integer, Long> flushing = new ConcurrentHashMap<>();
+
+    private final Duration flushInterval;
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "rating-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RatingAccumulator(AuthorRepository repository, JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ReadThroughCache<AuthorDto> authorCache, CollectionVersions collectionVersions,
+                             AuthorLeaderboard leaderboard,
+                             @Value("${app.rating.flush-interval:1s}") Duration flushInterval) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.authorCache = authorCache;
+        this.collectionVersions = collectionVersions;
+        this.leaderboard = leaderboard;
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * Запуск фоновой записи, когда приложение готово: до этого контекст
+     * (пул соединений, транзакции, кэш) может быть ещё не полностью создан.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long interval = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Увеличение рейтинга автора на delta (может быть отрицательным).
+     * Существование автора проверяется только для первого изменения после записи,
+     * по основной базе: на отстающей реплике только что созданного автора может ещё не быть.
+     *
+     * @param id идентификатор автора
+     * @param delta изменение рейтинга
+     * @throws ResponseStatusException 404, если автора нет
+     */
+    public void increment(Integer id, long delta) {
+        if (!pending.containsKey(id)
+                && !(authorCache.contains(id) || PrimaryReads.call(() -> repository.existsById(id)))) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Author not found: " + id);
+        }
+        pending.merge(id, delta, RatingAccumulator::sumOrRemove);
+    }
+
+    /**
+     * Отбрасывание незаписанных изменений удалённых авторов.
+     */
+    public void forget(Iterable<Integer> ids) {
+        ids.forEach(pending::remove);
+    }
+
+    /**
+     * Ещё не записанное в базу данных изменение рейтинга автора,
+     * включая записываемое сейчас, но ещё не зафиксированное.
+     */
+    public long pending(Integer id) {
+        // Сначала pending: flush переносит дельту в flushing раньше, чем вычитает её из pending
+        long sum = pending.getOrDefault(id, 0L);
+        return sum + flushing.getOrDefault(id, 0L);
+    }
+
+    /**
+     * Количество авторов с незаписанными изменениями.
+     */
+    int pendingAuthors() {
+        return pending.size();
+    }
+
+    /**
+     * Добавление незаписанных изменений к рейтингам авторов (для чтения с include-pending).
+     * Авторы без выбранного рейтинга (fields без rating) не меняются.
+     *
+     * @param authors свежие DTO авторов (не из кэша)
+     */
+    public void applyPending(List<AuthorDto> authors) {
+        for (AuthorDto author : authors) {
+            long delta = pending(author.getId());
+            if (delta != 0 && author.getRating() != null) {
+                author.setRating(author.getRating() + delta);
+            }
+        }
+    }
+
+    /**
+     * Запись накопленных изменений одним пакетом JDBC в одной транзакции.
+     *
+     * @return количество авторов, рейтинг которых изменился
+     */
+    public synchronized int flush() {
+        List<Integer> ids = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>();
+        pending.forEach((id, delta) -> {
+            if (delta != 0) {
+                ids.add(id);
+                batch.add(new Object[]{delta, id});
+            }
+        });
+        // Вычитается ровно выбранная дельта: нулевая сумма удаляет автора из карты.
+        // До фиксации дельта учитывается в flushing, поэтому чтения с includePending её не теряют
+        for (int i = 0; i < ids.size(); i++) {
+            long delta = (Long) batch.get(i)[0];
+            flushing.put(ids.get(i), delta);
+            pending.computeIfPresent(ids.get(i), (id, sum) -> sumOrRemove(sum, -delta));
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int[] updated;
+        try {
+            updated = transaction.execute(status -> {
+                collectionVersions.bump(CollectionVersions.AUTHORS);
+                return jdbcTemplate.batchUpdate(INCREMENT_SQL, batch);
+            });
+        } catch (RuntimeException e) {
+            for (int i = 0; i < ids.size(); i++) {
+                pending.merge(ids.get(i), (Long) batch.get(i)[0], RatingAccumulator::sumOrRemove);
+            }
+            throw e;
+        } finally {
+            flushing.clear();
+        }
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                // Автор удалён: его изменения больше некуда записывать
+                pending.remove(ids.get(i));
+            }
+        }
+        for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + IN_CHUNK, ids.size()));
+            chunk.forEach(authorCache::invalidate);
+            PrimaryReads.call(() -> repository.findDtosByIds(chunk)).forEach(leaderboard::upsert);
+        }
+        log.debug("Flushed rating deltas of {} authors", ids.size());
+        return ids.size();
+    }
+
+    /**
+     * Сложение дельт для ConcurrentHashMap.merge: null удаляет автора с нулевой суммой из карты.
+     */
+    private static Long sumOrRemove(Long sum, Long delta) {
+        long result = sum + delta;
+        return result != 0 ? result : null;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Rating flush failed, deltas kept for the next attempt", e);
+        }
+    }
+
+    /**
+     * Остановка фоновой записи и запись остатка перед закрытием пула соединений.
+     */
+    @PreDestroy
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.frameworks.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Проверка маршрутизации на встроенных базах H2: основной и репликах.
+ * Каждая база хранит своё имя, по нему видно, куда ушёл запрос.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        routing = new ReplicaRoutingDataSource(primary, List.of(replica),
+                RoutingDataSourceProperties.Strategy.ROUND_ROBIN, true, Duration.ofHours(1));
+        routing.afterPropertiesSet();
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(routing);
+        jdbc = new JdbcTemplate(proxy);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(proxy);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.end();
+        routing.close();
+        primary.close();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        assertEquals("replica", readOnly.execute(status -> whereAmI()));
+        assertEquals("primary", readWrite.execute(status -> whereAmI()));
+    }
+
+    @Test
+    void requestReadsFromPrimaryAfterWrite() {
+        ReadYourWrites.begin();
+        assertEquals("replica", readOnly.execute(status -> whereAmI()));
+        readWrite.executeWithoutResult(status -> jdbc.update("update node set name = name"));
+        assertEquals("primary", readOnly.execute(status -> whereAmI()));
+    }
+
+    @Test
+    void requestReadsStayOnOneReplica() {
+        HikariDataSource second = database("second");
+        ReplicaRoutingDataSource twoReplicas = new ReplicaRoutingDataSource(primary, List.of(replica, second),
+                RoutingDataSourceProperties.Strategy.ROUND_ROBIN, true, Duration.ofHours(1));
+        twoReplicas.afterPropertiesSet();
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(twoReplicas);
+        JdbcTemplate twoJdbc = new JdbcTemplate(proxy);
+        TransactionTemplate twoReadOnly = new TransactionTemplate(new DataSourceTransactionManager(proxy));
+        twoReadOnly.setReadOnly(true);
+        try {
+            ReadYourWrites.begin();
+            String first = twoReadOnly.execute(status -> twoJdbc.queryForObject("select name from node", String.class));
+            for (int i = 0; i < 4; i++) {
+                assertEquals(first, twoReadOnly.execute(status -> twoJdbc.queryForObject("select name from node", String.class)));
+            }
+        } finally {
+            twoReplicas.close();
+        }
+    }
+
+    @Test
+    void primaryReadsGoToPrimary() {
+        assertEquals("primary", PrimaryReads.call(() -> readOnly.execute(status -> whereAmI())));
+        assertEquals("replica", readOnly.execute(status -> whereAmI()));
+    }
+
+    @Test
+    void unavailableReplicaFallsBackToPrimary() {
+        replica.close();
+        assertEquals("primary", readOnly.execute(status -> whereAmI()));
+    }
+
+    private String whereAmI() {
+        return jdbc.queryForObject("select name from node", String.class);
+    }
+
+    private static HikariDataSource database(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(2);
+        new JdbcTemplate(dataSource).execute("create table if not exists node (name varchar(16))");
+        new JdbcTemplate(dataSource).execute("delete from node");
+        new JdbcTemplate(dataSource).update("insert into node values (?)", name);
+        return dataSource;
+    }
+}
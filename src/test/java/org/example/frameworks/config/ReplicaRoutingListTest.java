@@ -0,0 +1,138 @@
+package org.example.frameworks.config;
+
+import org.example.frameworks.search.CommentSearchIndex;
+import org.example.frameworks.services.RatingAccumulator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка чтений с отстающей реплики H2: ETag списка и сама страница читаются с одной реплики,
+ * а поиск не удаляет из индекса комментарии, которых на реплике ещё нет, и увеличение рейтинга
+ * проверяет существование автора по основной базе.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:listprimary",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.rating.flush-interval=1h",
+        "app.datasource.routing.enabled=true",
+        "app.datasource.routing.health-check-interval=1h",
+        "app.datasource.routing.replicas[0].url=" + ReplicaRoutingListTest.REPLICA_URL,
+        "app.datasource.routing.replicas[0].username=sa",
+        "app.datasource.routing.replicas[0].password="
+})
+class ReplicaRoutingListTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:listreplica;DB_CLOSE_DELAY=-1";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate primary;
+
+    @Autowired
+    private CommentSearchIndex searchIndex;
+
+    @Autowired
+    private RatingAccumulator ratingAccumulator;
+
+    private JdbcTemplate replica;
+
+    /**
+     * Схема реплики копируется с основной базы, данные реплики - прежнее состояние основной.
+     */
+    @BeforeEach
+    void setUp() {
+        replica = new JdbcTemplate(new SingleConnectionDataSource(REPLICA_URL, "sa", "", true));
+        if (replica.queryForObject("select count(*) from information_schema.tables where table_name = 'AUTHOR'",
+                Integer.class) == 0) {
+            primary.queryForList("script nodata", String.class).stream()
+                    .filter(statement -> !statement.startsWith("CREATE USER"))
+                    .forEach(replica::execute);
+        }
+        for (JdbcTemplate database : new JdbcTemplate[]{primary, replica}) {
+            database.update("delete from comment");
+            database.update("delete from author");
+            database.update("delete from collection_version");
+            database.update("insert into author (id, first_name, last_name, rating, version) values (1, 'Old', 'Author', 0, 0)");
+        }
+        primary.update("insert into author (id, first_name, last_name, rating, version) values (2, 'New', 'Author', 0, 0)");
+        primary.update("insert into comment (id, text, author_id, version) values (1, 'new comment', 2, 0)");
+        primary.update("insert into collection_version (name, version) values ('author', 5), ('comment', 7)");
+        replica.update("insert into collection_version (name, version) values ('author', 1), ('comment', 2)");
+    }
+
+    @Test
+    void authorListEtagComesFromTheReplicaOfThePage() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("/author", null);
+
+        assertEquals(200, response.statusCode());
+        assertEquals("W/\"a1.c2\"", response.headers().firstValue("ETag").orElse(null));
+        assertTrue(response.body().contains("Old"), response.body());
+        assertFalse(response.body().contains("New"), response.body());
+        assertEquals(304, get("/author", "W/\"a1.c2\"").statusCode());
+        assertEquals(200, get("/author?fields=id,firstName", "W/\"a5.c7\"").statusCode());
+    }
+
+    @Test
+    void commentListEtagComesFromTheReplicaOfThePage() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("/comment", null);
+
+        assertEquals(200, response.statusCode());
+        assertEquals("W/\"c2\"", response.headers().firstValue("ETag").orElse(null));
+        assertFalse(response.body().contains("new comment"), response.body());
+    }
+
+    @Test
+    void searchKeepsCommentsTheReplicaHasNotReceived() throws IOException, InterruptedException {
+        searchIndex.add(1, "new comment");
+
+        HttpResponse<String> response = get("/comment/search?q=new", null);
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("new comment"), response.body());
+        assertEquals(List.of(1), searchIndex.search("new comment", 10));
+    }
+
+    @Test
+    void ratingIncrementFindsAuthorTheReplicaHasNotReceived() throws IOException, InterruptedException {
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/author/2/rating/increment?delta=3"))
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(202, response.statusCode(), response.body());
+        assertEquals(3L, ratingAccumulator.pending(2));
+    }
+
+    private HttpResponse<String> get(String path, String ifNoneMatch) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", "application/json");
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return HttpClient.newHttpClient().send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.frameworks.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.frameworks.dto.BatchFailureDto;
+import org.example.frameworks.dto.BatchResultDto;
+import org.example.frameworks.dto.CommentDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка POST /comment/batch: созданные комментарии в порядке запроса,
+ * ошибки по отдельным элементам без отката остальных и предел размера пакета.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class CommentBatchTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from comment");
+        jdbcTemplate.update("delete from author");
+        jdbcTemplate.update("insert into author (id, first_name, last_name, rating, version) values (1, 'First', 'Last', 0, 0)");
+    }
+
+    @Test
+    void createsValidItemsAndReportsFailedOnes() throws IOException, InterruptedException {
+        List<CommentDto> batch = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            batch.add(new CommentDto(null, "comment " + i, 1, null, null));
+        }
+        batch.set(1, new CommentDto(null, "unknown author", 999, null, null));
+        batch.set(700, new CommentDto(null, "no author", null, null, null));
+
+        HttpResponse<String> response = post(batch);
+
+        assertEquals(200, response.statusCode(), response.body());
+        BatchResultDto result = objectMapper.readValue(response.body(), BatchResultDto.class);
+        assertEquals(1198, result.getCreatedIds().size());
+        List<Integer> sorted = new ArrayList<>(result.getCreatedIds());
+        Collections.sort(sorted);
+        assertEquals(sorted, result.getCreatedIds(), "ids must follow the request order");
+        assertEquals(List.of(1, 700), result.getFailures().stream().map(BatchFailureDto::getIndex).toList());
+        assertTrue(result.getFailures().get(0).getMessage().contains("999"), result.getFailures().get(0).getMessage());
+        assertEquals(1198, jdbcTemplate.queryForObject("select count(*) from comment", Integer.class));
+        assertEquals("comment 2", jdbcTemplate.queryForObject("select text from comment where id = ?",
+                String.class, result.getCreatedIds().get(1)));
+    }
+
+    @Test
+    void rejectsTooLargeBatch() throws IOException, InterruptedException {
+        List<CommentDto> batch = Collections.nCopies(10_001, new CommentDto(null, "text", 1, null, null));
+
+        assertEquals(400, post(batch).statusCode());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from comment", Integer.class));
+    }
+
+    private HttpResponse<String> post(List<CommentDto> batch) throws IOException, InterruptedException {
+        return HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/comment/batch"))
+                        .header("Content-Type", "application/json")
+                        .header("Accept", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(batch)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
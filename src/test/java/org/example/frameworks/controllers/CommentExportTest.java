@@ -0,0 +1,73 @@
+package org.example.frameworks.controllers;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка выгрузки GET /comment/export в NDJSON: все комментарии с идентификатором автора,
+ * без загрузки сущностей комментариев и авторов в контекст персистентности.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:export",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class CommentExportTest {
+
+    private static final int COMMENTS = 1200;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void exportsProjectionWithoutLoadingEntities() throws IOException, InterruptedException {
+        jdbcTemplate.update("insert into author (id, first_name, last_name, rating, version) "
+                + "values (1, 'First', 'Last', 0, 0), (2, 'Second', 'Last', 0, 0)");
+        for (int id = 1; id <= COMMENTS; id++) {
+            jdbcTemplate.update("insert into comment (id, text, author_id, creation_time, version) "
+                    + "values (?, ?, ?, current_timestamp, 0)", id, "comment " + id, id % 2 + 1);
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long loaded = statistics.getEntityLoadCount() + statistics.getEntityFetchCount();
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/comment/export"))
+                        .header("Accept", "application/x-ndjson")
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        List<String> lines = response.body().lines().toList();
+        assertEquals(COMMENTS, lines.size());
+        assertTrue(lines.get(0).contains("\"id\":1,") && lines.get(0).contains("\"authorId\":2"), lines.get(0));
+        assertEquals(loaded, statistics.getEntityLoadCount() + statistics.getEntityFetchCount(),
+                "export must not load comment or author entities");
+    }
+}
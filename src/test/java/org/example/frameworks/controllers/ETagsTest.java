@@ -0,0 +1,55 @@
+package org.example.frameworks.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка разбора If-Match (по идентификатору и версии записи) и слабого сравнения If-None-Match.
+ */
+class ETagsTest {
+
+    @Test
+    void expectedVersionComesFromIfMatchOrBody() {
+        assertEquals(3L, ETags.expectedVersion(ETags.of(17, 3), 17, 9L));
+        assertEquals(3L, ETags.expectedVersion("\"17.3\"", 17, null));
+        assertEquals(4L, ETags.expectedVersion("W/\"5.1\", W/\"17.4\"", 17, null));
+        assertEquals(9L, ETags.expectedVersion(null, 17, 9L));
+        assertNull(ETags.expectedVersion(" ", 17, null));
+    }
+
+    @Test
+    void ifMatchStarAcceptsAnyVersion() {
+        assertNull(ETags.expectedVersion("*", 17, 9L));
+    }
+
+    @Test
+    void ifMatchOfAnotherResourceFailsPrecondition() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> ETags.expectedVersion(ETags.of(5, 3), 17, null));
+        assertEquals(HttpStatus.PRECONDITION_FAILED, e.getStatusCode());
+    }
+
+    @Test
+    void ifMatchWithoutVersionIsBadRequest() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> ETags.expectedVersion("\"abc\"", 17, null));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    @Test
+    void ifNoneMatchComparesWeakly() {
+        String etag = ETags.of("a1", "c2");
+        assertTrue(ETags.matches("\"a1.c2\"", etag));
+        assertTrue(ETags.matches("W/\"x\", " + etag, etag));
+        assertTrue(ETags.matches("*", etag));
+        assertFalse(ETags.matches("W/\"a1.c3\"", etag));
+        assertFalse(ETags.matches(null, etag));
+    }
+}
@@ -0,0 +1,138 @@
+package org.example.frameworks.feed;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.frameworks.dto.CommentDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка ленты комментариев: перезапись кольцевого буфера, продолжение по Last-Event-ID,
+ * событие gap для отставшего подписчика, фильтр по автору и рассылка многим подписчикам
+ * через пул из двух потоков записи.
+ */
+class CommentFeedTest {
+
+    private final CommentFeed feed = new CommentFeed(4, 10, 2, Duration.ofMinutes(1), Duration.ofSeconds(30),
+            new SimpleMeterRegistry());
+
+    @AfterEach
+    void close() {
+        feed.close();
+    }
+
+    @Test
+    void ringKeepsOnlyLastCapacityEvents() {
+        publish(6);
+
+        assertEquals(6, feed.head());
+        assertEquals(3, feed.oldest(feed.head()));
+        assertNull(feed.get(1));
+        assertNull(feed.get(2));
+        assertEquals(3, feed.get(3).sequence());
+        assertEquals(6, feed.get(6).comment().getId());
+        assertNull(feed.get(7));
+    }
+
+    @Test
+    void resumesFromLastEventId() {
+        publish(6);
+
+        assertEquals(6, feed.resumePosition(null));
+        assertEquals(5, feed.resumePosition(feed.eventId(5)));
+        assertEquals(6, feed.resumePosition(feed.eventId(100)));
+        assertEquals(6, feed.resumePosition(feed.eventId(5).replaceAll("\\d+$", "x")));
+        // Идентификатор прошлой эпохи (перезапуск): клиент получает всё, что есть в буфере
+        assertEquals(2, feed.resumePosition("0-5"));
+    }
+
+    @Test
+    void laggingSubscriberGetsGapAndOnlyItsAuthor() throws InterruptedException {
+        publish(6);
+        RecordingEmitter emitter = new RecordingEmitter();
+        FeedSubscriber subscriber = new FeedSubscriber(feed, emitter, 1, 0);
+
+        feed.start(subscriber);
+
+        assertEquals("id:" + feed.eventId(2) + "\nevent:gap\ndata:{skipped=2}\n\n", emitter.next());
+        assertEquals("id:" + feed.eventId(3) + "\nevent:comment\ndata:comment#3\n\n", emitter.next());
+        assertEquals("id:" + feed.eventId(5) + "\nevent:comment\ndata:comment#5\n\n", emitter.next());
+
+        feed.publish(new CommentDto(7, "text", 2, 0L, null));
+        feed.publish(new CommentDto(8, "text", 1, 0L, null));
+        assertEquals("id:" + feed.eventId(8) + "\nevent:comment\ndata:comment#8\n\n", emitter.next());
+        assertTrue(emitter.events.isEmpty());
+        subscriber.close();
+    }
+
+    @Test
+    void fewWritersServeAllSubscribers() throws InterruptedException {
+        List<RecordingEmitter> emitters = new ArrayList<>();
+        List<FeedSubscriber> subscribers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            RecordingEmitter emitter = new RecordingEmitter();
+            FeedSubscriber subscriber = new FeedSubscriber(feed, emitter, i % 2 == 0 ? null : 1, feed.head());
+            feed.start(subscriber);
+            emitters.add(emitter);
+            subscribers.add(subscriber);
+        }
+
+        feed.publish(new CommentDto(1, "text", 1, 0L, null));
+        feed.publish(new CommentDto(2, "text", 2, 0L, null));
+
+        for (int i = 0; i < emitters.size(); i++) {
+            assertEquals("id:" + feed.eventId(1) + "\nevent:comment\ndata:comment#1\n\n", emitters.get(i).next());
+            if (i % 2 == 0) {
+                assertEquals("id:" + feed.eventId(2) + "\nevent:comment\ndata:comment#2\n\n", emitters.get(i).next());
+            }
+        }
+        assertTrue(emitters.stream().allMatch(emitter -> emitter.events.isEmpty()));
+        subscribers.forEach(FeedSubscriber::close);
+    }
+
+    /**
+     * Комментарии 1..count, нечётные - автора 1, чётные - автора 2.
+     */
+    private void publish(int count) {
+        for (int id = 1; id <= count; id++) {
+            feed.publish(new CommentDto(id, "text", id % 2 == 1 ? 1 : 2, 0L, null));
+        }
+    }
+
+    /**
+     * SSE-ответ, который вместо записи в сокет складывает события в очередь.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder event = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                Object data = part.getData();
+                event.append(data instanceof CommentDto comment ? "comment#" + comment.getId() : data);
+            }
+            events.add(event.toString());
+        }
+
+        String next() throws InterruptedException {
+            String event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "No feed event within 5 seconds");
+            return event;
+        }
+    }
+}
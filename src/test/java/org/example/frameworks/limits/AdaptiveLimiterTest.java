@@ -0,0 +1,64 @@
+package org.example.frameworks.limits;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка AIMD-ограничителя: отказ сверх предела, рост при быстрых ответах и сброс при медленных.
+ */
+class AdaptiveLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    void rejectsRequestsOverLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("writes", 2, 1, 10, Duration.ofMillis(100), 0.5);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected());
+    }
+
+    @Test
+    void growsOnlyWhenLimitIsUsed() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("reads", 4, 1, 5, Duration.ofMillis(100), 0.5);
+
+        limiter.tryAcquire();
+        limiter.release(FAST, false);
+        assertEquals(4, limiter.getLimit());
+
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+        }
+        for (int i = 0; i < 4; i++) {
+            limiter.release(FAST, false);
+        }
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void backsOffOncePerRequestDuration() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("writes", 8, 1, 10, Duration.ofMillis(100), 0.5);
+
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.release(SLOW, false);
+        limiter.release(SLOW, false);
+        assertEquals(4, limiter.getLimit());
+
+        Thread.sleep(5);
+        limiter.tryAcquire();
+        limiter.release(FAST, true);
+        assertEquals(2, limiter.getLimit());
+    }
+}
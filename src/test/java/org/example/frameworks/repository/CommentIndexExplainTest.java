@@ -0,0 +1,125 @@
+package org.example.frameworks.repository;
+
+import org.example.frameworks.services.Cursors;
+import org.example.frameworks.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка планов запросов по времени к локальному PostgreSQL (EXPLAIN с параметрами).
+ * Схема создаётся Liquibase, выполняется только при заданной переменной окружения EXPLAIN_DB_URL,
+ * например EXPLAIN_DB_URL=jdbc:postgresql://localhost:5433/skillbox.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = SqlStatementCounter.PROPERTY)
+@EnabledIfEnvironmentVariable(named = "EXPLAIN_DB_URL", matches = ".+")
+class CommentIndexExplainTest {
+
+    /**
+     * Идентификаторы тестовых авторов, не пересекающиеся с последовательностью author_seq.
+     */
+    private static final int AUTHOR = 1_000_000;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("EXPLAIN_DB_URL"));
+        registry.add("spring.datasource.username",
+                () -> Objects.requireNonNullElse(System.getenv("EXPLAIN_DB_USER"), "skillbox"));
+        registry.add("spring.datasource.password",
+                () -> Objects.requireNonNullElse(System.getenv("EXPLAIN_DB_PASSWORD"), "skillbox"));
+    }
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * На пустых секциях стоимость обоих индексов одинакова, поэтому план проверяется
+     * на комментариях сотни авторов за текущий месяц со свежей статистикой.
+     */
+    @BeforeEach
+    void fill() {
+        jdbcTemplate.update("insert into author (id, first_name, last_name, rating)"
+                + " select id, 'First', 'Last', 0 from generate_series(?, ?) id", AUTHOR, AUTHOR + 99);
+        jdbcTemplate.update("insert into comment (creation_time, text, author_id)"
+                + " select date_trunc('month', localtimestamp) + i * interval '1 second', 'text', ? + i % 100"
+                + " from generate_series(1, 20000) i", AUTHOR);
+        jdbcTemplate.execute("analyze comment");
+    }
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.update("delete from author where id between ? and ?", AUTHOR, AUTHOR + 99);
+        jdbcTemplate.execute("analyze comment");
+    }
+
+    @Test
+    void authorTimeRangeUsesAuthorTimeIndex() {
+        SqlStatementCounter.reset();
+        commentRepository.findDtoPageByAuthorAndTime(AUTHOR, Cursors.MIN_TIME, 0, Cursors.MAX_TIME, PageRequest.of(0, 10));
+
+        String plan = explain(SqlStatementCounter.lastStatement(),
+                AUTHOR, Cursors.MIN_TIME, 0, Cursors.MIN_TIME, Cursors.MAX_TIME, 0, 10);
+
+        // Индексы секций создаются из idx_comment_author_time с именами comment_pГГГГ_ММ_author_id_creation_time_id_idx,
+        // секции объединяются Merge Append (строка "Sort Key") без узла Sort
+        assertTrue(plan.contains("_author_id_creation_time_id_idx"), plan);
+        assertFalse(plan.contains("Sort  ("), plan);
+    }
+
+    @Test
+    void timeRangeUsesTimeIndex() {
+        SqlStatementCounter.reset();
+        commentRepository.findDtoPageByTime(Cursors.MIN_TIME, 0, Cursors.MAX_TIME, PageRequest.of(0, 10));
+
+        String plan = explain(SqlStatementCounter.lastStatement(),
+                Cursors.MIN_TIME, 0, Cursors.MIN_TIME, Cursors.MAX_TIME, 0, 10);
+
+        assertTrue(plan.matches("(?s).*comment_p\\d{4}_\\d{2}_creation_time_id_idx.*"), plan);
+        assertFalse(plan.contains("Sort  ("), plan);
+    }
+
+    /**
+     * План запроса Hibernate с конкретными значениями параметров.
+     * Последовательное сканирование отключается, чтобы на маленькой тестовой таблице
+     * проверить, что запрос вообще может выполняться по индексу.
+     */
+    private String explain(String sql, Object... parameters) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET enable_seqscan = off");
+                StringBuilder plan = new StringBuilder();
+                try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                    for (int i = 0; i < parameters.length; i++) {
+                        explain.setObject(i + 1, parameters[i]);
+                    }
+                    try (ResultSet rows = explain.executeQuery()) {
+                        while (rows.next()) {
+                            plan.append(rows.getString(1)).append('\n');
+                        }
+                    }
+                }
+                statement.execute("RESET enable_seqscan");
+                return plan.toString();
+            }
+        });
+    }
+}
@@ -0,0 +1,227 @@
+package org.example.frameworks.repository;
+
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.integration.spring.SpringResourceAccessor;
+import org.example.frameworks.services.CommentPartitionMaintenance;
+import org.example.frameworks.support.SqlStatementCounter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка отсечения помесячных секций comment на локальном PostgreSQL (EXPLAIN с параметрами),
+ * обслуживания секций и отката секционирования.
+ * Схема создаётся Liquibase, выполняется только при заданной переменной окружения EXPLAIN_DB_URL,
+ * например EXPLAIN_DB_URL=jdbc:postgresql://localhost:5433/skillbox.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = SqlStatementCounter.PROPERTY)
+@EnabledIfEnvironmentVariable(named = "EXPLAIN_DB_URL", matches = ".+")
+class CommentPartitionExplainTest {
+
+    /**
+     * Идентификатор тестового автора, не пересекающийся с последовательностью author_seq.
+     */
+    private static final int AUTHOR = 1_000_000;
+
+    /**
+     * Схема, в которой changelog применяется и откатывается с нуля, не затрагивая основную схему.
+     */
+    private static final String ROLLBACK_SCHEMA = "partition_rollback_test";
+
+    private static final String CHANGELOG = "db/changelog/db.changelog-master.xml";
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("EXPLAIN_DB_URL"));
+        registry.add("spring.datasource.username",
+                () -> Objects.requireNonNullElse(System.getenv("EXPLAIN_DB_USER"), "skillbox"));
+        registry.add("spring.datasource.password",
+                () -> Objects.requireNonNullElse(System.getenv("EXPLAIN_DB_PASSWORD"), "skillbox"));
+    }
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private CommentPartitionRepository partitionRepository;
+
+    @Autowired
+    private CommentPartitionMaintenance maintenance;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final YearMonth month = YearMonth.now();
+
+    private final LocalDateTime from = month.atDay(1).atStartOfDay();
+
+    private final LocalDateTime to = from.plusDays(10);
+
+    @Test
+    void timeRangeReadsOnlyItsMonth() {
+        SqlStatementCounter.reset();
+        commentRepository.findDtoPageByTime(from, 0, to, PageRequest.of(0, 10));
+
+        String plan = explain(SqlStatementCounter.lastStatement(), from, 0, from, to, 0, 10);
+
+        assertOnlyCurrentMonth(plan);
+    }
+
+    @Test
+    void authorTimeRangeReadsOnlyItsMonth() {
+        SqlStatementCounter.reset();
+        commentRepository.findDtoPageByAuthorAndTime(1, from, 0, to, PageRequest.of(0, 10));
+
+        String plan = explain(SqlStatementCounter.lastStatement(), 1, from, 0, from, to, 0, 10);
+
+        assertOnlyCurrentMonth(plan);
+    }
+
+    @Test
+    void deleteByTimeReadsOnlyItsMonth() {
+        String plan = explain("delete from comment where creation_time >= ? and creation_time < ?", from, to);
+
+        assertOnlyCurrentMonth(plan);
+    }
+
+    @Test
+    void maintenanceCreatesUpcomingPartitions() {
+        YearMonth future = month.plusYears(5);
+        try {
+            maintenance.maintain(future);
+
+            List<String> partitions = partitionRepository.findPartitions();
+            assertTrue(partitions.contains(CommentPartitionRepository.partitionName(future)), partitions.toString());
+            assertTrue(partitions.contains(CommentPartitionRepository.partitionName(future.plusMonths(3))),
+                    partitions.toString());
+        } finally {
+            for (int i = 0; i <= 3; i++) {
+                partitionRepository.dropPartition(CommentPartitionRepository.partitionName(future.plusMonths(i)));
+            }
+        }
+    }
+
+    @Test
+    void maintenanceMovesDefaultRowsToTheirMonth() {
+        YearMonth past = YearMonth.of(2001, 3);
+        jdbcTemplate.update("insert into author (id, first_name, last_name, rating) values (?, 'First', 'Last', 0)", AUTHOR);
+        try {
+            jdbcTemplate.update("insert into comment (creation_time, text, author_id) values (?, 'text', ?), (?, 'text', ?)",
+                    past.atDay(1).atStartOfDay(), AUTHOR, past.atEndOfMonth().atTime(23, 59), AUTHOR);
+            assertEquals(2, partitionRepository.countDefaultRows());
+
+            maintenance.maintain(month);
+
+            assertEquals(0, partitionRepository.countDefaultRows());
+            assertEquals(2, jdbcTemplate.queryForObject(
+                    "select count(*) from " + CommentPartitionRepository.partitionName(past), Integer.class));
+            // Повторный запуск при пустом comment_default ничего не меняет
+            maintenance.maintain(month);
+            assertTrue(partitionRepository.findPartitions().contains(CommentPartitionRepository.partitionName(past)));
+        } finally {
+            jdbcTemplate.update("delete from author where id = ?", AUTHOR);
+            jdbcTemplate.execute("drop table if exists " + CommentPartitionRepository.partitionName(past));
+        }
+    }
+
+    @Test
+    void partitioningRollsBackAndReapplies() throws Exception {
+        jdbcTemplate.execute("drop schema if exists " + ROLLBACK_SCHEMA + " cascade");
+        jdbcTemplate.execute("create schema " + ROLLBACK_SCHEMA);
+        String url = System.getenv("EXPLAIN_DB_URL");
+        try (Connection connection = DriverManager.getConnection(
+                url + (url.contains("?") ? "&" : "?") + "currentSchema=" + ROLLBACK_SCHEMA,
+                Objects.requireNonNullElse(System.getenv("EXPLAIN_DB_USER"), "skillbox"),
+                Objects.requireNonNullElse(System.getenv("EXPLAIN_DB_PASSWORD"), "skillbox"))) {
+            Liquibase liquibase = new Liquibase(CHANGELOG, new SpringResourceAccessor(new DefaultResourceLoader()),
+                    new JdbcConnection(connection));
+            liquibase.getDatabase().setDefaultSchemaName(ROLLBACK_SCHEMA);
+            liquibase.update(new Contexts());
+            jdbcTemplate.update("insert into " + ROLLBACK_SCHEMA + ".author (first_name, last_name, rating) "
+                    + "values ('First', 'Last', 0)");
+            jdbcTemplate.update("insert into " + ROLLBACK_SCHEMA + ".comment (creation_time, text, author_id) "
+                    + "select localtimestamp, 'text', id from " + ROLLBACK_SCHEMA + ".author");
+
+            liquibase.rollback(jdbcTemplate.queryForObject("select count(*) from " + ROLLBACK_SCHEMA + ".databasechangelog "
+                    + "where orderexecuted >= (select orderexecuted from " + ROLLBACK_SCHEMA + ".databasechangelog "
+                    + "where id = 'partitionCommentByMonth')", Integer.class), null);
+
+            assertEquals("r", commentRelkind());
+            // Значение id по умолчанию по-прежнему из comment_seq, последовательность принадлежит новой таблице
+            jdbcTemplate.update("insert into " + ROLLBACK_SCHEMA + ".comment (creation_time, text, author_id) "
+                    + "select localtimestamp, 'after', id from " + ROLLBACK_SCHEMA + ".author");
+            assertEquals(2, jdbcTemplate.queryForObject(
+                    "select count(distinct id) from " + ROLLBACK_SCHEMA + ".comment", Integer.class));
+
+            liquibase.update(new Contexts());
+
+            assertEquals("p", commentRelkind());
+            assertEquals(2, jdbcTemplate.queryForObject("select count(*) from " + ROLLBACK_SCHEMA + ".comment", Integer.class));
+        } finally {
+            jdbcTemplate.execute("drop schema if exists " + ROLLBACK_SCHEMA + " cascade");
+        }
+    }
+
+    /**
+     * @return вид таблицы comment в схеме отката: r - обычная, p - секционированная
+     */
+    private String commentRelkind() {
+        return jdbcTemplate.queryForObject("select c.relkind from pg_class c join pg_namespace n on n.oid = c.relnamespace "
+                + "where c.relname = 'comment' and n.nspname = ?", String.class, ROLLBACK_SCHEMA);
+    }
+
+    private void assertOnlyCurrentMonth(String plan) {
+        assertTrue(plan.contains(CommentPartitionRepository.partitionName(month)), plan);
+        assertFalse(plan.contains(CommentPartitionRepository.partitionName(month.minusMonths(1))), plan);
+        assertFalse(plan.contains(CommentPartitionRepository.partitionName(month.plusMonths(1))), plan);
+        assertFalse(plan.contains("comment_default"), plan);
+    }
+
+    /**
+     * План запроса с конкретными значениями параметров (custom plan),
+     * чтобы секции отсекались при планировании, как при выполнении запроса приложением.
+     */
+    private String explain(String sql, Object... parameters) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET plan_cache_mode = force_custom_plan");
+                StringBuilder plan = new StringBuilder();
+                try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                    for (int i = 0; i < parameters.length; i++) {
+                        explain.setObject(i + 1, parameters[i]);
+                    }
+                    try (ResultSet rows = explain.executeQuery()) {
+                        while (rows.next()) {
+                            plan.append(rows.getString(1)).append('\n');
+                        }
+                    }
+                }
+                statement.execute("RESET plan_cache_mode");
+                return plan.toString();
+            }
+        });
+    }
+}
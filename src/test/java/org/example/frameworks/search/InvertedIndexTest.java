@@ -0,0 +1,79 @@
+package org.example.frameworks.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка инвертированного индекса: разбиение на слова, пересечение списков, ранжирование и обновления.
+ */
+class InvertedIndexTest {
+
+    @Test
+    void tokenizeLowercasesAndSkipsShortWords() {
+        assertEquals(Set.of("привет", "мир", "42"), InvertedIndex.tokenize("Привет, МИР! a 42 привет"));
+    }
+
+    @Test
+    void searchIntersectsAllTermsNewestFirst() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1, "spring boot jpa");
+        index.add(2, "spring data");
+        index.add(3, "Spring Boot actuator");
+        index.add(5, "boot only");
+
+        assertEquals(List.of(3, 1), index.search(InvertedIndex.tokenize("boot spring"), 10));
+        assertEquals(List.of(3), index.search(InvertedIndex.tokenize("boot spring"), 1));
+        assertTrue(index.search(InvertedIndex.tokenize("spring missing"), 10).isEmpty());
+    }
+
+    @Test
+    void updateAndRemoveMaintainPostings() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(2, "old text");
+        index.add(1, "old words");
+
+        index.remove(2, "old text");
+        index.add(2, "new text");
+        index.remove(1, "old words");
+
+        assertTrue(index.search(Set.of("old"), 10).isEmpty());
+        assertEquals(List.of(2), index.search(Set.of("new", "text"), 10));
+        assertEquals(2, index.terms());
+        assertEquals(2, index.postingsCount());
+    }
+
+    @Test
+    void moreOccurrencesRankHigher() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1, "java java java spring");
+        index.add(2, "java spring");
+        index.add(3, "java spring spring");
+        index.add(4, "java");
+
+        assertEquals(List.of(1, 3, 2), index.search(InvertedIndex.tokenize("spring java"), 10));
+        assertEquals(List.of(1, 3), index.search(InvertedIndex.tokenize("spring java"), 2));
+        assertEquals(List.of(1, 4, 3, 2), index.search(InvertedIndex.tokenize("java"), 10));
+    }
+
+    @Test
+    void removedDocumentsAreSkippedAndCompacted() {
+        InvertedIndex index = new InvertedIndex();
+        for (int id = 1; id <= 100; id++) {
+            index.add(id, "word");
+        }
+        for (int id = 1; id <= 90; id++) {
+            index.remove(id, "word");
+        }
+        index.add(50, "word");
+
+        assertEquals(List.of(100, 99, 98), index.search(Set.of("word"), 3));
+        assertEquals(11, index.search(Set.of("word"), 100).size());
+        assertEquals(11, index.postingsCount());
+        assertTrue(index.estimatedBytes() < 1000, String.valueOf(index.estimatedBytes()));
+    }
+}
@@ -0,0 +1,194 @@
+package org.example.frameworks.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.frameworks.config.CacheConfig;
+import org.example.frameworks.dto.AuthorDto;
+import org.example.frameworks.entity.Author;
+import org.example.frameworks.entity.Comment;
+import org.example.frameworks.support.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка количества SQL-запросов на пути чтения авторов:
+ * число запросов не должно расти вместе с количеством авторов (N+1),
+ * а частичный ответ (fields, include) читает только запрошенные колонки и связи.
+ */
+@DataJpaTest(properties = {
+        SqlStatementCounter.PROPERTY,
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.rating.flush-interval=1h"
+})
+@Import({AuthorCRUDService.class, CacheConfig.class, CollectionVersions.class, AuthorLeaderboard.class, RatingAccumulator.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class AuthorCRUDServiceQueryCountTest {
+
+    private static final int AUTHORS = 20;
+    private static final int COMMENTS_PER_AUTHOR = 3;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AuthorCRUDService service;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Integer firstAuthorId;
+
+    private final List<Integer> authorIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < AUTHORS; i++) {
+            Author author = new Author();
+            author.setFirstName("First" + i);
+            author.setLastName("Last" + i);
+            author.setRating((long) i);
+            entityManager.persist(author);
+            authorIds.add(author.getId());
+            if (firstAuthorId == null) {
+                firstAuthorId = author.getId();
+            }
+            for (int j = 0; j < COMMENTS_PER_AUTHOR; j++) {
+                Comment comment = new Comment();
+                comment.setText("Comment " + i + "/" + j);
+                comment.setAuthor(author);
+                entityManager.persist(comment);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        SqlStatementCounter.reset();
+    }
+
+    @Test
+    void getAllLoadsCommentsInBatches() {
+        Collection<AuthorDto> authors = service.getAll();
+
+        assertEquals(AUTHORS, authors.size());
+        authors.forEach(author -> assertEquals(COMMENTS_PER_AUTHOR, author.getComments().size()));
+        assertTrue(SqlStatementCounter.count() <= 2,
+                "getAll issued " + SqlStatementCounter.count() + " statements");
+    }
+
+    @Test
+    void getPageLoadsCommentsInBatches() {
+        service.getPage(null, AUTHORS);
+
+        assertTrue(SqlStatementCounter.count() <= 2,
+                "getPage issued " + SqlStatementCounter.count() + " statements");
+    }
+
+    @Test
+    void getByIdUsesAuthorAndCommentProjections() {
+        AuthorDto author = service.getById(firstAuthorId);
+
+        assertEquals(COMMENTS_PER_AUTHOR, author.getComments().size());
+        assertEquals(2, SqlStatementCounter.count());
+    }
+
+    @Test
+    void patchIssuesTargetedUpdateWithoutTouchingComments() {
+        AuthorDto patch = new AuthorDto();
+        patch.setRating(100L);
+
+        service.patch(firstAuthorId, patch, 0L);
+
+        assertEquals(2, SqlStatementCounter.count(), "one UPDATE and one projection for the leaderboard");
+        AuthorDto author = service.getById(firstAuthorId);
+        assertEquals(100L, author.getRating());
+        assertEquals("First0", author.getFirstName());
+        assertEquals(1L, author.getVersion());
+        assertEquals(COMMENTS_PER_AUTHOR, author.getComments().size());
+    }
+
+    @Test
+    void patchWithStaleVersionFailsWithPreconditionFailed() {
+        AuthorDto patch = new AuthorDto();
+        patch.setFirstName("Renamed");
+        service.patch(firstAuthorId, patch, 0L);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.patch(firstAuthorId, patch, 0L));
+        assertEquals(HttpStatus.PRECONDITION_FAILED, e.getStatusCode());
+    }
+
+    @Test
+    void getByIdsSelectsOnlyRequestedColumns() throws JsonProcessingException {
+        List<AuthorDto> authors = service.getByIds(authorIds, "firstName", null, false);
+
+        assertEquals(1, SqlStatementCounter.count());
+        String sql = SqlStatementCounter.lastStatement();
+        assertTrue(sql.contains("first_name"), sql);
+        assertFalse(sql.contains("last_name") || sql.contains("rating") || sql.contains("version"), sql);
+        assertEquals(AUTHORS, authors.size());
+        AuthorDto first = authors.get(0);
+        assertEquals("First0", first.getFirstName());
+        assertNull(first.getRating());
+        assertNull(first.getComments());
+        // Незапрошенные поля не попадают в JSON (NON_NULL)
+        assertEquals("{\"id\":" + firstAuthorId + ",\"firstName\":\"First0\"}", objectMapper.writeValueAsString(first));
+    }
+
+    @Test
+    void getByIdsLoadsCommentsOnlyWithInclude() {
+        List<AuthorDto> withoutComments = service.getByIds(authorIds, "id", null, false);
+        assertEquals(1, SqlStatementCounter.count());
+        withoutComments.forEach(author -> assertNull(author.getComments()));
+
+        SqlStatementCounter.reset();
+        List<AuthorDto> withComments = service.getByIds(authorIds, "id", "comments", false);
+        assertEquals(2, SqlStatementCounter.count(), "one select for authors and one IN (...) for their comments");
+        withComments.forEach(author -> assertEquals(COMMENTS_PER_AUTHOR, author.getComments().size()));
+    }
+
+    @Test
+    void getByIdsWithoutFieldsReturnsFullAuthorsInIdOrder() {
+        List<AuthorDto> authors = service.getByIds(List.of(authorIds.get(2), authorIds.get(0), -1), null, null, false);
+
+        assertEquals(List.of(authorIds.get(0), authorIds.get(2)), authors.stream().map(AuthorDto::getId).toList());
+        assertEquals("Last0", authors.get(0).getLastName());
+        assertEquals(COMMENTS_PER_AUTHOR, authors.get(0).getComments().size());
+    }
+
+    @Test
+    void getByIdsRejectsTooManyIds() {
+        List<Integer> ids = IntStream.rangeClosed(1, Cursors.MAX_LIMIT + 1).boxed().toList();
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.getByIds(ids, null, null, false));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        assertEquals(0, SqlStatementCounter.count());
+    }
+
+    @Test
+    void getByIdsRejectsUnknownField() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.getByIds(authorIds, "id,password", null, false));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        assertEquals(0, SqlStatementCounter.count());
+    }
+}
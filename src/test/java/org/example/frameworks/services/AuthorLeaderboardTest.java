@@ -0,0 +1,100 @@
+package org.example.frameworks.services;
+
+import org.example.frameworks.dto.AuthorDto;
+import org.example.frameworks.entity.Author;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Проверка рейтинга авторов в памяти: построение из базы данных, изменения после записей
+ * видны первому же чтению, автор за пределами ёмкости не попадает в рейтинг.
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.leaderboard.capacity=3"
+})
+@Import(AuthorLeaderboard.class)
+class AuthorLeaderboardTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AuthorLeaderboard leaderboard;
+
+    private final List<Integer> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 5; i++) {
+            Author author = new Author();
+            author.setFirstName("First" + i);
+            author.setLastName("Last" + i);
+            author.setRating((long) i * 10);
+            entityManager.persist(author);
+            ids.add(author.getId());
+        }
+        entityManager.flush();
+        leaderboard.invalidate();
+    }
+
+    @Test
+    void loadsTopByRatingUpToCapacity() {
+        assertEquals(List.of(ids.get(4), ids.get(3), ids.get(2)), topIds(10));
+        assertEquals(List.of(ids.get(4)), topIds(1));
+    }
+
+    @Test
+    void changesAreVisibleToTheNextRead() {
+        topIds(3);
+
+        leaderboard.upsert(update(0, 100L));
+        assertEquals(List.of(ids.get(0), ids.get(4), ids.get(3)), topIds(3));
+
+        // Обрезанный рейтинг после удаления дочитывается из базы данных
+        entityManager.getEntityManager().createQuery("delete from Author a where a.id = :id")
+                .setParameter("id", ids.get(4)).executeUpdate();
+        leaderboard.remove(ids.get(4));
+        assertEquals(List.of(ids.get(0), ids.get(3), ids.get(2)), topIds(3));
+
+        // Устаревшая версия не откатывает рейтинг
+        leaderboard.upsert(new AuthorDto(ids.get(0), "First0", "Last0", 0L, 0L));
+        assertEquals(List.of(ids.get(0), ids.get(3), ids.get(2)), topIds(3));
+    }
+
+    @Test
+    void authorBelowTruncatedTopIsIgnored() {
+        List<Integer> before = topIds(3);
+
+        leaderboard.upsert(update(1, 15L));
+
+        assertEquals(before, topIds(3));
+        assertEquals("First4", leaderboard.top(1).get(0).getFirstName());
+    }
+
+    /**
+     * Изменение рейтинга автора в базе данных, как его выполнил бы сервис.
+     *
+     * @return новые поля автора для рейтинга
+     */
+    private AuthorDto update(int index, long rating) {
+        entityManager.getEntityManager()
+                .createQuery("update Author a set a.rating = :rating, a.version = a.version + 1 where a.id = :id")
+                .setParameter("rating", rating).setParameter("id", ids.get(index)).executeUpdate();
+        return new AuthorDto(ids.get(index), "First" + index, "Last" + index, rating, 1L);
+    }
+
+    private List<Integer> topIds(int n) {
+        return leaderboard.top(n).stream().map(AuthorDto::getId).toList();
+    }
+}
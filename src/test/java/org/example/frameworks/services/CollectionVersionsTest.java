@@ -0,0 +1,102 @@
+package org.example.frameworks.services;
+
+import org.example.frameworks.dto.CommentDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка счётчиков изменений коллекций на H2: параллельные записи увеличивают разные полосы,
+ * версия растёт ровно на число фиксаций, без полос счётчик увеличивается одной строкой.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:versions",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class CollectionVersionsTest {
+
+    private static final int AUTHOR_ID = 1;
+
+    @Autowired
+    private CommentCRUDService commentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from comment_activity");
+        jdbcTemplate.update("delete from comment");
+        jdbcTemplate.update("delete from author");
+        jdbcTemplate.update("delete from collection_version");
+        jdbcTemplate.update("insert into author (id, first_name, last_name, rating, version) values (?, 'First', 'Last', 0, 0)",
+                AUTHOR_ID);
+    }
+
+    @Test
+    void concurrentWritesSpreadOverStripes() throws Exception {
+        for (String name : new String[]{CollectionVersions.AUTHORS, CollectionVersions.COMMENTS}) {
+            for (int stripe = 0; stripe < CollectionVersions.STRIPES; stripe++) {
+                jdbcTemplate.update("insert into collection_version (name, stripe, version) values (?, ?, 0)", name, stripe);
+            }
+        }
+        // Строка свёртки активности создаётся заранее: MERGE в H2 не атомарен при одновременной вставке
+        commentService.create(new CommentDto(null, "first", AUTHOR_ID, null, null));
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int writer = 0; writer < 8; writer++) {
+                futures.add(writers.submit(() -> {
+                    for (int i = 0; i < 25; i++) {
+                        commentService.create(new CommentDto(null, "comment " + i, AUTHOR_ID, null, null));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+
+        assertEquals("c201", commentService.getCollectionVersion());
+        assertTrue(jdbcTemplate.queryForObject("select count(*) from collection_version where name = ? and version > 0",
+                Integer.class, CollectionVersions.COMMENTS) > 1);
+    }
+
+    @Test
+    void counterWithoutStripesGrowsInStripeZero() {
+        jdbcTemplate.update("insert into collection_version (name, version) values ('author', 0), ('comment', 3)");
+
+        for (int i = 0; i < 10; i++) {
+            commentService.create(new CommentDto(null, "comment " + i, AUTHOR_ID, null, null));
+        }
+
+        assertEquals("c13", commentService.getCollectionVersion());
+    }
+
+    @Test
+    void versionOfMissingCommentIsNotFound() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> commentService.getVersion(404));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+    }
+}
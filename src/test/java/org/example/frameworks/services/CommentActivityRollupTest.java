@@ -0,0 +1,209 @@
+package org.example.frameworks.services;
+
+import org.example.frameworks.dto.CommentDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка почасовой свёртки comment_activity на H2 (upsert через MERGE):
+ * создание, удаление (в том числе одним запросом) и смена автора комментария меняют счётчик нужного (автор, час),
+ * сверка исправляет расхождения и не мешает параллельной записи, запросы с неверными параметрами
+ * (в том числе смена автора на несуществующего) отклоняются.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:activity",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class CommentActivityRollupTest {
+
+    private static final int FIRST = 1;
+
+    private static final int SECOND = 2;
+
+    @Autowired
+    private CommentCRUDService commentService;
+
+    @Autowired
+    private CommentActivityRollup rollup;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from comment_activity");
+        jdbcTemplate.update("delete from comment");
+        jdbcTemplate.update("delete from author");
+        jdbcTemplate.update("delete from collection_version");
+        jdbcTemplate.update("insert into collection_version (name, version) values ('author', 0), ('comment', 0)");
+        jdbcTemplate.update("insert into author (id, first_name, last_name, rating, version) "
+                + "values (?, 'First', 'Last', 0, 0), (?, 'Second', 'Last', 0, 0)", FIRST, SECOND);
+    }
+
+    @Test
+    void createPatchAndDeleteMoveTheAuthorHourBucket() {
+        commentService.create(new CommentDto(null, "first comment", FIRST, null, null));
+        commentService.create(new CommentDto(null, "second comment", FIRST, null, null));
+        Integer id = jdbcTemplate.queryForObject("select min(id) from comment", Integer.class);
+        LocalDateTime hour = CommentActivityRollup.bucket(
+                jdbcTemplate.queryForObject("select creation_time from comment where id = ?", LocalDateTime.class, id));
+
+        assertEquals(List.of(hour + "=" + 2), activity(FIRST));
+        assertEquals(List.of(), activity(SECOND));
+
+        CommentDto patch = new CommentDto();
+        patch.setAuthorId(SECOND);
+        commentService.patch(id, patch, null);
+
+        assertEquals(List.of(hour + "=" + 1), activity(FIRST));
+        assertEquals(List.of(hour + "=" + 1), activity(SECOND));
+
+        commentService.delete(id);
+
+        assertEquals(List.of(hour + "=" + 1), activity(FIRST));
+        assertEquals(List.of(), activity(SECOND));
+    }
+
+    @Test
+    void patchToUnknownAuthorIsBadRequestAndKeepsCounters() {
+        commentService.create(new CommentDto(null, "comment", FIRST, null, null));
+        Integer id = jdbcTemplate.queryForObject("select id from comment", Integer.class);
+        List<String> before = activity(FIRST);
+        CommentDto patch = new CommentDto();
+        patch.setAuthorId(999);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> commentService.patch(id, patch, null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        assertEquals(before, activity(FIRST));
+    }
+
+    @Test
+    void bulkDeleteSubtractsExactlyTheDeletedComments() {
+        for (int i = 0; i < 3; i++) {
+            commentService.create(new CommentDto(null, "first " + i, FIRST, null, null));
+        }
+        commentService.create(new CommentDto(null, "second", SECOND, null, null));
+        LocalDateTime hour = CommentActivityRollup.bucket(
+                jdbcTemplate.queryForObject("select max(creation_time) from comment", LocalDateTime.class));
+        // Комментарий прошлого года вне интервала удаления, свёртка перенесена вместе с ним
+        LocalDateTime lastYear = hour.minusYears(1);
+        jdbcTemplate.update("update comment set creation_time = ? where text = 'first 0'", Timestamp.valueOf(lastYear));
+        jdbcTemplate.update("update comment_activity set comment_count = 2 where author_id = ?", FIRST);
+        jdbcTemplate.update("insert into comment_activity (author_id, bucket_start, comment_count) values (?, ?, 1)",
+                FIRST, Timestamp.valueOf(lastYear));
+
+        assertEquals(2, commentService.deleteAll(FIRST, hour.minusDays(1), null));
+
+        assertEquals(List.of(), activity(FIRST));
+        assertEquals(List.of(hour + "=" + 1), activity(SECOND));
+        assertEquals(2, commentService.deleteAll(null, null, hour.plusHours(1)));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from comment_activity where comment_count <> 0", Integer.class));
+    }
+
+    @Test
+    void reconcileFixesDrift() {
+        commentService.create(new CommentDto(null, "comment", FIRST, null, null));
+        LocalDateTime hour = CommentActivityRollup.bucket(
+                jdbcTemplate.queryForObject("select max(creation_time) from comment", LocalDateTime.class));
+        LocalDateTime earlier = hour.minusHours(3);
+        // Счётчик разошёлся с таблицей, а у второго автора есть счётчик без комментариев
+        jdbcTemplate.update("update comment_activity set comment_count = 5 where author_id = ?", FIRST);
+        jdbcTemplate.update("insert into comment_activity (author_id, bucket_start, comment_count) values (?, ?, 4)",
+                SECOND, Timestamp.valueOf(earlier));
+
+        assertEquals(2, rollup.reconcile());
+
+        assertEquals(List.of(hour + "=" + 1), activity(FIRST));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from comment_activity where author_id = ?", Integer.class, SECOND));
+        assertEquals(0, rollup.reconcile());
+    }
+
+    @Test
+    void reconcileDuringWritesKeepsCountersExact() throws Exception {
+        // MERGE в H2 не атомарен при одновременной вставке одного ключа (в отличие от ON CONFLICT),
+        // поэтому строки счётчиков текущего часа создаются заранее
+        commentService.create(new CommentDto(null, "first", FIRST, null, null));
+        commentService.create(new CommentDto(null, "second", SECOND, null, null));
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int writer = 0; writer < 4; writer++) {
+                int authorId = writer % 2 == 0 ? FIRST : SECOND;
+                futures.add(writers.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        commentService.create(new CommentDto(null, "comment " + i, authorId, null, null));
+                    }
+                }));
+            }
+            while (!futures.stream().allMatch(Future::isDone)) {
+                rollup.reconcile();
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+
+        assertEquals(0, rollup.reconcile());
+        assertEquals(jdbcTemplate.queryForObject("select count(*) from comment", Long.class),
+                jdbcTemplate.queryForObject("select sum(comment_count) from comment_activity", Long.class));
+    }
+
+    @Test
+    void unknownGranularityIsBadRequest() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> rollup.getActivity(FIRST, "week", null, null));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    @Test
+    void oversizedOrEmptyRangeIsBadRequest() {
+        LocalDateTime to = LocalDateTime.now();
+
+        ResponseStatusException hourly = assertThrows(ResponseStatusException.class,
+                () -> rollup.getActivity(FIRST, "hour", to.minusDays(32), to));
+        assertEquals(HttpStatus.BAD_REQUEST, hourly.getStatusCode());
+        ResponseStatusException daily = assertThrows(ResponseStatusException.class,
+                () -> rollup.getActivity(FIRST, "day", to.minusYears(4), to));
+        assertEquals(HttpStatus.BAD_REQUEST, daily.getStatusCode());
+        ResponseStatusException empty = assertThrows(ResponseStatusException.class,
+                () -> rollup.getActivity(FIRST, "hour", to, to));
+        assertEquals(HttpStatus.BAD_REQUEST, empty.getStatusCode());
+        assertTrue(rollup.getActivity(FIRST, "day", to.minusDays(90), to).isEmpty());
+    }
+
+    /**
+     * Почасовые счётчики автора за последние сутки в виде "начало часа=количество".
+     */
+    private List<String> activity(int authorId) {
+        return rollup.getActivity(authorId, "hour", null, LocalDateTime.now().plusMinutes(1)).stream()
+                .map(bucket -> bucket.getBucketStart() + "=" + bucket.getCount())
+                .toList();
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.frameworks.services;
+
+import org.example.frameworks.dto.CommentDto;
+import org.example.frameworks.search.CommentSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка поиска комментариев по устаревшему индексу: отброшенные при перепроверке
+ * кандидаты заменяются следующими, пока не наберётся limit подходящих комментариев.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:search",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class CommentSearchTest {
+
+    @Autowired
+    private CommentCRUDService commentService;
+
+    @Autowired
+    private CommentSearchIndex searchIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void staleCandidatesAreReplacedUntilLimit() throws InterruptedException {
+        jdbcTemplate.update("insert into collection_version (name, version) values ('author', 0), ('comment', 0)");
+        jdbcTemplate.update("insert into author (id, first_name, last_name, rating, version) values (1, 'First', 'Last', 0, 0)");
+        for (int i = 0; i < 40; i++) {
+            commentService.create(new CommentDto(null, "apple pie " + i, 1, null, null));
+        }
+        for (int i = 0; i < 50 && !Boolean.TRUE.equals(searchIndex.stats().get("ready")); i++) {
+            Thread.sleep(100);
+        }
+        List<Integer> ids = jdbcTemplate.queryForList("select id from comment order by id desc", Integer.class);
+        // 15 самых новых комментариев изменены в обход сервиса: индекс о них не знает
+        jdbcTemplate.update("update comment set text = 'banana' where id >= ?", ids.get(14));
+
+        List<CommentDto> found = commentService.search("apple", 10);
+
+        assertEquals(ids.subList(15, 25), found.stream().map(CommentDto::getId).toList());
+        found.forEach(comment -> assertTrue(comment.getText().startsWith("apple"), comment.getText()));
+        assertEquals(25, commentService.search("apple", 100).size());
+        assertEquals(List.of(), commentService.search("banana", 10));
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.frameworks.services;
+
+import org.example.frameworks.dto.ImportResultDto;
+import org.example.frameworks.repository.CommentPartitionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка загрузки CSV через COPY на локальном PostgreSQL: подсчёт отклонённых строк,
+ * выдача идентификаторов блоками последовательности и секции для комментариев задним числом.
+ * Схема создаётся Liquibase, выполняется только при заданной переменной окружения EXPLAIN_DB_URL,
+ * например EXPLAIN_DB_URL=jdbc:postgresql://localhost:5433/skillbox.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@EnabledIfEnvironmentVariable(named = "EXPLAIN_DB_URL", matches = ".+")
+class CsvCopyServiceTest {
+
+    /**
+     * Фамилия всех загружаемых тестом авторов, по ней они удаляются после теста.
+     */
+    private static final String LAST_NAME = "CsvCopyServiceTest";
+
+    /**
+     * Явный идентификатор автора из файла, выше значений последовательности author_seq.
+     */
+    private static final int EXPLICIT_ID = 2_000_000;
+
+    private static final YearMonth PAST = YearMonth.of(2003, 5);
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("EXPLAIN_DB_URL"));
+        registry.add("spring.datasource.username",
+                () -> Objects.requireNonNullElse(System.getenv("EXPLAIN_DB_USER"), "skillbox"));
+        registry.add("spring.datasource.password",
+                () -> Objects.requireNonNullElse(System.getenv("EXPLAIN_DB_PASSWORD"), "skillbox"));
+    }
+
+    @Autowired
+    private CsvCopyService service;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.update("delete from comment_activity where author_id in (select id from author where last_name = ?)",
+                LAST_NAME);
+        jdbcTemplate.update("delete from author where last_name = ?", LAST_NAME);
+        jdbcTemplate.execute("drop table if exists " + CommentPartitionRepository.partitionName(PAST));
+    }
+
+    @Test
+    void authorImportRejectsLongNamesAndReplacedDuplicates() throws IOException {
+        ImportResultDto result = service.importAuthors(csv(
+                "id,first_name,last_name,rating",
+                EXPLICIT_ID + ",Old," + LAST_NAME + ",1",
+                ",New," + LAST_NAME + ",2",
+                EXPLICIT_ID + ",Fresh," + LAST_NAME + ",3",
+                "," + "x".repeat(300) + "," + LAST_NAME + ",4"));
+
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals(List.of(1L, 4L), result.getRejectedLines());
+        assertEquals("Fresh", jdbcTemplate.queryForObject("select first_name from author where id = ?",
+                String.class, EXPLICIT_ID));
+        assertEquals(2, authors());
+    }
+
+    @Test
+    void authorsWithoutIdGetSequenceBlocksBelowTheNextBlock() throws IOException {
+        String[] lines = new String[121];
+        lines[0] = "id,first_name,last_name,rating";
+        for (int i = 1; i < lines.length; i++) {
+            lines[i] = ",First" + i + "," + LAST_NAME + "," + i;
+        }
+
+        ImportResultDto result = service.importAuthors(csv(lines));
+
+        assertEquals(120, result.getImported());
+        assertEquals(0, result.getRejected());
+        assertEquals(120, jdbcTemplate.queryForObject(
+                "select count(distinct id) from author where last_name = ?", Integer.class, LAST_NAME));
+        // pooled-lo: следующий блок Hibernate начинается с nextval и не пересекается с загруженными
+        long nextBlock = jdbcTemplate.queryForObject("select nextval('author_seq')", Long.class);
+        long maxImported = jdbcTemplate.queryForObject(
+                "select max(id) from author where last_name = ?", Long.class, LAST_NAME);
+        assertTrue(nextBlock > maxImported, nextBlock + " <= " + maxImported);
+    }
+
+    @Test
+    void commentImportRejectsUnknownAuthorsAndLongTextAndPartitionsPastMonths() throws IOException {
+        jdbcTemplate.update("insert into author (id, first_name, last_name, rating) values (?, 'First', ?, 0)",
+                EXPLICIT_ID, LAST_NAME);
+
+        ImportResultDto result = service.importComments(csv(
+                "author_id,text,creation_time",
+                EXPLICIT_ID + ",hello," + PAST.atDay(10).atTime(10, 15),
+                "999999999,orphan,",
+                EXPLICIT_ID + "," + "x".repeat(300) + ",",
+                EXPLICIT_ID + ",now,"));
+
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals(List.of(2L, 3L), result.getRejectedLines());
+        assertEquals(1L, jdbcTemplate.queryForObject("select comment_count from comment_activity "
+                + "where author_id = ? and bucket_start = ?", Long.class, EXPLICIT_ID, PAST.atDay(10).atTime(10, 0)));
+        assertEquals(0L, jdbcTemplate.queryForObject("select count(*) from comment_default", Long.class));
+        assertEquals(1L, jdbcTemplate.queryForObject(
+                "select count(*) from " + CommentPartitionRepository.partitionName(PAST), Long.class));
+    }
+
+    private int authors() {
+        return jdbcTemplate.queryForObject("select count(*) from author where last_name = ?", Integer.class, LAST_NAME);
+    }
+
+    private static InputStream csv(String... lines) {
+        return new ByteArrayInputStream((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.frameworks.services;
+
+import org.example.frameworks.dto.AuthorDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка разбора параметров fields и include частичного ответа.
+ */
+class FieldSetTest {
+
+    private static final Map<String, FieldSet.Field<AuthorDto>> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("id", new FieldSet.Field<>("id", (dto, value) -> dto.setId((Integer) value)));
+        FIELDS.put("firstName", new FieldSet.Field<>("firstName", (dto, value) -> dto.setFirstName((String) value)));
+        FIELDS.put("rating", new FieldSet.Field<>("rating", (dto, value) -> dto.setRating((Long) value)));
+        FIELDS.put("comments", new FieldSet.Field<>(null, (dto, value) -> { }));
+    }
+
+    @Test
+    void withoutParametersSelectsEverything() {
+        FieldSet<AuthorDto> fieldSet = FieldSet.parse(null, null, FIELDS);
+
+        assertTrue(fieldSet.isAll());
+        assertTrue(fieldSet.contains("comments"));
+    }
+
+    @Test
+    void fieldsSelectOnlyListedColumnsAndId() {
+        FieldSet<AuthorDto> fieldSet = FieldSet.parse(" rating, ", null, FIELDS);
+
+        assertFalse(fieldSet.isAll());
+        assertTrue(fieldSet.contains("id"));
+        assertTrue(fieldSet.contains("rating"));
+        assertFalse(fieldSet.contains("firstName"));
+        assertFalse(fieldSet.contains("comments"));
+    }
+
+    @Test
+    void includeAddsRelationToAllColumns() {
+        FieldSet<AuthorDto> fieldSet = FieldSet.parse(null, "comments", FIELDS);
+
+        assertFalse(fieldSet.isAll());
+        assertTrue(fieldSet.contains("firstName"));
+        assertTrue(fieldSet.contains("rating"));
+        assertTrue(fieldSet.contains("comments"));
+    }
+
+    @Test
+    void unknownFieldIsBadRequest() {
+        ResponseStatusException fields = assertThrows(ResponseStatusException.class,
+                () -> FieldSet.parse("id,password", null, FIELDS));
+        assertEquals(HttpStatus.BAD_REQUEST, fields.getStatusCode());
+
+        ResponseStatusException include = assertThrows(ResponseStatusException.class,
+                () -> FieldSet.parse(null, "likes", FIELDS));
+        assertEquals(HttpStatus.BAD_REQUEST, include.getStatusCode());
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.frameworks.services;
+
+import org.example.frameworks.config.CacheConfig;
+import org.example.frameworks.dto.AuthorDto;
+import org.example.frameworks.entity.Author;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Проверка накопления изменений рейтинга: запись одним пакетом, увеличение version,
+ * удаление авторов с нулевой суммой и удалённых авторов из карты незаписанных изменений,
+ * видимость записываемых изменений до конца транзакции записи.
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.rating.flush-interval=1h"
+})
+@Import({RatingAccumulator.class, CacheConfig.class, CollectionVersions.class, AuthorLeaderboard.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class RatingAccumulatorTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RatingAccumulator accumulator;
+
+    @SpyBean
+    private CollectionVersions collectionVersions;
+
+    private Integer authorId;
+
+    @BeforeEach
+    void setUp() {
+        Author author = new Author();
+        author.setFirstName("First");
+        author.setLastName("Last");
+        author.setRating(0L);
+        entityManager.persist(author);
+        entityManager.flush();
+        entityManager.clear();
+        authorId = author.getId();
+    }
+
+    /**
+     * Накопитель - общий бин контекста, а откат тестовой транзакции его не очищает.
+     */
+    @AfterEach
+    void forget() {
+        accumulator.forget(List.of(authorId));
+    }
+
+    @Test
+    void incrementsArePendingUntilOneBatchedFlush() {
+        for (int i = 0; i < 100; i++) {
+            accumulator.increment(authorId, 1);
+        }
+        accumulator.increment(authorId, -10);
+
+        assertEquals(90L, accumulator.pending(authorId));
+        assertEquals(0L, rating());
+
+        assertEquals(1, accumulator.flush());
+
+        assertEquals(90L, rating());
+        assertEquals(1L, version(), "flush must bump the row version like any other author change");
+        assertEquals(0L, accumulator.pending(authorId));
+        assertEquals(0, accumulator.pendingAuthors());
+        assertEquals(0, accumulator.flush());
+    }
+
+    @Test
+    void flushedDeltaStaysPendingInsideTheFlushTransaction() {
+        accumulator.increment(authorId, 4);
+        AtomicLong pendingDuringFlush = new AtomicLong();
+        doAnswer(invocation -> {
+            pendingDuringFlush.set(accumulator.pending(authorId));
+            return invocation.callRealMethod();
+        }).when(collectionVersions).bump(CollectionVersions.AUTHORS);
+
+        assertEquals(1, accumulator.flush());
+
+        assertEquals(4L, pendingDuringFlush.get());
+        assertEquals(0L, accumulator.pending(authorId));
+    }
+
+    @Test
+    void pendingDeltasAreAddedToSelectedRatings() {
+        accumulator.increment(authorId, 7);
+        AuthorDto withRating = new AuthorDto();
+        withRating.setId(authorId);
+        withRating.setRating(10L);
+        AuthorDto withoutRating = new AuthorDto();
+        withoutRating.setId(authorId);
+
+        accumulator.applyPending(List.of(withRating, withoutRating));
+
+        assertEquals(17L, withRating.getRating());
+        assertNull(withoutRating.getRating());
+    }
+
+    @Test
+    void zeroSumLeavesNoPendingEntry() {
+        accumulator.increment(authorId, 5);
+        accumulator.increment(authorId, -5);
+
+        assertEquals(0, accumulator.pendingAuthors());
+        assertEquals(0, accumulator.flush());
+        assertEquals(0L, version());
+    }
+
+    @Test
+    void deletedAuthorDeltasAreDropped() {
+        accumulator.increment(authorId, 3);
+        jdbcTemplate.update("delete from author where id = ?", authorId);
+
+        accumulator.flush();
+
+        assertEquals(0, accumulator.pendingAuthors());
+    }
+
+    @Test
+    void unknownAuthorIsRejected() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> accumulator.increment(authorId + 1000, 1));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+        assertEquals(0, accumulator.pendingAuthors());
+    }
+
+    private long rating() {
+        return jdbcTemplate.queryForObject("select rating from author where id = ?", Long.class, authorId);
+    }
+
+    private long version() {
+        return jdbcTemplate.queryForObject("select version from author where id = ?", Long.class, authorId);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.frameworks.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Счётчик SQL-запросов, которые Hibernate отправляет в базу данных.
+ * Подключается в тестах свойством hibernate.session_factory.statement_inspector
+ * и позволяет проверить, сколько запросов выполняет один вызов сервиса
+ * и какой SQL был выполнен последним.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    public static final String PROPERTY =
+            "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                    + "org.example.frameworks.support.SqlStatementCounter";
+
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    private static volatile String lastStatement;
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.incrementAndGet();
+        lastStatement = sql;
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.set(0);
+        lastStatement = null;
+    }
+
+    public static String lastStatement() {
+        return lastStatement;
+    }
+
+    public static int count() {
+        return COUNT.get();
+    }
+}